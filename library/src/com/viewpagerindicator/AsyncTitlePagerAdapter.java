@@ -0,0 +1,17 @@
+package com.viewpagerindicator;
+
+/**
+ * An adapter whose page titles are too expensive to create on the main thread.
+ * Indicators which display titles will load them in the background using
+ * {@link #loadPageTitle(int)} rather than calling {@code getPageTitle(int)}.
+ */
+public interface AsyncTitlePagerAdapter {
+    /**
+     * Load the title of the page at {@code index} in the adapter. This is
+     * called on a background thread.
+     */
+    CharSequence loadPageTitle(int index);
+
+    // From PagerAdapter
+    int getCount();
+}
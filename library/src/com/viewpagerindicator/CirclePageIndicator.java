@@ -19,7 +19,9 @@ package com.viewpagerindicator;
 import android.content.Context;
 import android.content.res.Resources;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Paint.Style;
 import android.graphics.drawable.Drawable;
@@ -57,12 +59,39 @@ public class CirclePageIndicator extends View implements PageIndicator {
     private int mOrientation;
     private boolean mCentered;
     private boolean mSnap;
+    private int mMaxVisibleDots;
+
+    /** Pre-rendered unselected circles, drawn at mLayerLeft, mLayerTop. */
+    private Bitmap mLayer;
+    private final Canvas mLayerCanvas = new Canvas();
+    private int mLayerLeft;
+    private int mLayerTop;
+    private int mLayerCount = -1;
+    private float mLayerLongOffset;
+    private float mLayerShortOffset;
+    private boolean mLayerDirty = true;
 
     private int mTouchSlop;
     private float mLastMotionX = -1;
     private int mActivePointerId = INVALID_POINTER;
     private boolean mIsDragging;
 
+    /** Applies at most one scroll event per frame. */
+    private final ScrollCoalescer mScrollCoalescer = new ScrollCoalescer(this, new ScrollCoalescer.Callback() {
+        @Override
+        public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+            //Only the filled circle moves, and only when not snapping
+            if (!mSnap) {
+                invalidateFill();
+            }
+            mCurrentPage = position;
+            mPageOffset = positionOffset;
+            if (!mSnap) {
+                invalidateFill();
+            }
+        }
+    });
+
 
     public CirclePageIndicator(Context context) {
         this(context, null);
@@ -125,6 +154,7 @@ public class CirclePageIndicator extends View implements PageIndicator {
 
     public void setPageColor(int pageColor) {
         mPaintPageFill.setColor(pageColor);
+        mLayerDirty = true;
         invalidate();
     }
 
@@ -146,6 +176,7 @@ public class CirclePageIndicator extends View implements PageIndicator {
             case HORIZONTAL:
             case VERTICAL:
                 mOrientation = orientation;
+                mLayerDirty = true;
                 requestLayout();
                 break;
 
@@ -160,6 +191,7 @@ public class CirclePageIndicator extends View implements PageIndicator {
 
     public void setStrokeColor(int strokeColor) {
         mPaintStroke.setColor(strokeColor);
+        mLayerDirty = true;
         invalidate();
     }
 
@@ -169,6 +201,7 @@ public class CirclePageIndicator extends View implements PageIndicator {
 
     public void setStrokeWidth(float strokeWidth) {
         mPaintStroke.setStrokeWidth(strokeWidth);
+        mLayerDirty = true;
         invalidate();
     }
 
@@ -178,6 +211,7 @@ public class CirclePageIndicator extends View implements PageIndicator {
 
     public void setRadius(float radius) {
         mRadius = radius;
+        mLayerDirty = true;
         invalidate();
     }
 
@@ -194,6 +228,29 @@ public class CirclePageIndicator extends View implements PageIndicator {
         return mSnap;
     }
 
+    /**
+     * Limit the number of circles shown at once. When there are more pages
+     * than this the circles slide along with the current page and those at an
+     * edge beyond which there are more pages are drawn smaller.
+     *
+     * @param maxVisibleDots Maximum number of circles, at least three, or 0 to
+     *            always show a circle for every page.
+     */
+    public void setMaxVisibleDots(int maxVisibleDots) {
+        if ((maxVisibleDots != 0) && (maxVisibleDots < 3)) {
+            throw new IllegalArgumentException("Maximum visible dots must be 0 or at least 3.");
+        }
+        mMaxVisibleDots = maxVisibleDots;
+        mLayer = null;
+        mLayerDirty = true;
+        requestLayout();
+        invalidate();
+    }
+
+    public int getMaxVisibleDots() {
+        return mMaxVisibleDots;
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
@@ -211,29 +268,106 @@ public class CirclePageIndicator extends View implements PageIndicator {
             return;
         }
 
-        int longSize;
-        int longPaddingBefore;
-        int longPaddingAfter;
-        int shortPaddingBefore;
+        if (isWindowed(count)) {
+            drawWindow(canvas, count, getShortOffset());
+            return;
+        }
+
+        final float threeRadius = mRadius * 3;
+        final float shortOffset = getShortOffset();
+        final float longOffset = getLongOffset(count);
+
+        updateLayer(count, longOffset, shortOffset);
+        if (mLayer != null) {
+            canvas.drawBitmap(mLayer, mLayerLeft, mLayerTop, null);
+        }
+
+        float dX;
+        float dY;
+
+        //Draw the filled circle according to the current scroll
+        float cx = (mSnap ? mSnapPage : mCurrentPage) * threeRadius;
+        if (!mSnap) {
+            cx += mPageOffset * threeRadius;
+        }
         if (mOrientation == HORIZONTAL) {
-            longSize = getWidth();
-            longPaddingBefore = getPaddingLeft();
-            longPaddingAfter = getPaddingRight();
-            shortPaddingBefore = getPaddingTop();
+            dX = longOffset + cx;
+            dY = shortOffset;
         } else {
-            longSize = getHeight();
-            longPaddingBefore = getPaddingTop();
-            longPaddingAfter = getPaddingBottom();
-            shortPaddingBefore = getPaddingLeft();
+            dX = shortOffset;
+            dY = longOffset + cx;
         }
+        canvas.drawCircle(dX, dY, mRadius, mPaintFill);
+    }
 
-        final float threeRadius = mRadius * 3;
-        final float shortOffset = shortPaddingBefore + mRadius;
-        float longOffset = longPaddingBefore + mRadius;
-        if (mCentered) {
-            longOffset += ((longSize - longPaddingBefore - longPaddingAfter) / 2.0f) - ((count * threeRadius) / 2.0f);
+    /**
+     * Re-render the unselected circles into the layer if anything affecting
+     * them has changed since it was last rendered.
+     */
+    private void updateLayer(int count, float longOffset, float shortOffset) {
+        if (!mLayerDirty && (mLayerCount == count) && (mLayerLongOffset == longOffset)
+                && (mLayerShortOffset == shortOffset)) {
+            return;
+        }
+        mLayerDirty = false;
+        mLayerCount = count;
+        mLayerLongOffset = longOffset;
+        mLayerShortOffset = shortOffset;
+
+        //Include an extra pixel for antialiasing
+        final float extent = mRadius + (mPaintStroke.getStrokeWidth() / 2) + 1;
+        final float longStart = longOffset - extent;
+        final float longEnd = longOffset + ((count - 1) * mRadius * 3) + extent;
+        final float shortStart = shortOffset - extent;
+        final float shortEnd = shortOffset + extent;
+
+        //Only keep the part which is actually visible
+        int left;
+        int top;
+        int right;
+        int bottom;
+        if (mOrientation == HORIZONTAL) {
+            left = (int) Math.floor(longStart);
+            top = (int) Math.floor(shortStart);
+            right = (int) Math.ceil(longEnd);
+            bottom = (int) Math.ceil(shortEnd);
+        } else {
+            left = (int) Math.floor(shortStart);
+            top = (int) Math.floor(longStart);
+            right = (int) Math.ceil(shortEnd);
+            bottom = (int) Math.ceil(longEnd);
         }
+        left = Math.max(left, 0);
+        top = Math.max(top, 0);
+        right = Math.min(right, getWidth());
+        bottom = Math.min(bottom, getHeight());
+        if ((right <= left) || (bottom <= top)) {
+            mLayer = null;
+            return;
+        }
+
+        final int width = right - left;
+        final int height = bottom - top;
+        if ((mLayer == null) || (mLayer.getWidth() != width) || (mLayer.getHeight() != height)) {
+            mLayer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        } else {
+            mLayer.eraseColor(Color.TRANSPARENT);
+        }
+        mLayerLeft = left;
+        mLayerTop = top;
 
+        mLayerCanvas.setBitmap(mLayer);
+        mLayerCanvas.save();
+        mLayerCanvas.translate(-left, -top);
+        drawPageCircles(mLayerCanvas, count, longOffset, shortOffset);
+        mLayerCanvas.restore();
+    }
+
+    /**
+     * Draw the stroked and page-filled circle of every page.
+     */
+    private void drawPageCircles(Canvas canvas, int count, float longOffset, float shortOffset) {
+        final float threeRadius = mRadius * 3;
         float dX;
         float dY;
 
@@ -262,12 +396,85 @@ public class CirclePageIndicator extends View implements PageIndicator {
                 canvas.drawCircle(dX, dY, mRadius, mPaintStroke);
             }
         }
+    }
 
-        //Draw the filled circle according to the current scroll
-        float cx = (mSnap ? mSnapPage : mCurrentPage) * threeRadius;
-        if (!mSnap) {
-            cx += mPageOffset * threeRadius;
+    private boolean isWindowed(int count) {
+        return (mMaxVisibleDots > 0) && (count > mMaxVisibleDots);
+    }
+
+    /**
+     * Position of the filled circle in pages, including the scroll offset
+     * when not snapping.
+     */
+    private float getFillPosition() {
+        if (mSnap) {
+            return mSnapPage;
         }
+        return mCurrentPage + mPageOffset;
+    }
+
+    /**
+     * Page shown by the first visible circle. Fractional while sliding so that
+     * the filled circle stays in the middle of the window.
+     */
+    private float getWindowStart(int count, float position) {
+        final float start = position - ((mMaxVisibleDots - 1) / 2.0f);
+        return Math.max(0, Math.min(count - mMaxVisibleDots, start));
+    }
+
+    /**
+     * Draw only the circles of the pages in the window around the current
+     * page so the cost does not depend on the number of pages.
+     */
+    private void drawWindow(Canvas canvas, int count, float shortOffset) {
+        final float threeRadius = mRadius * 3;
+        final float longOffset = getLongOffset(mMaxVisibleDots);
+        final float position = getFillPosition();
+        final float windowStart = getWindowStart(count, position);
+        final float windowEnd = windowStart + mMaxVisibleDots - 1;
+        //Only shrink an edge with more pages beyond it, easing in over one page
+        final float startShrink = Math.min(windowStart, 1);
+        final float endShrink = Math.min(count - 1 - windowEnd, 1);
+
+        float dX;
+        float dY;
+
+        float pageFillRadius = mRadius;
+        if (mPaintStroke.getStrokeWidth() > 0) {
+            pageFillRadius -= mPaintStroke.getStrokeWidth() / 2.0f;
+        }
+
+        final int first = (int) Math.floor(windowStart);
+        final int last = Math.min(count - 1, (int) Math.ceil(windowEnd));
+        for (int iLoop = first; iLoop <= last; iLoop++) {
+            final float scale = 1
+                    - (startShrink * (1 - getEdgeScale(iLoop - windowStart)))
+                    - (endShrink * (1 - getEdgeScale(windowEnd - iLoop)));
+            if (scale <= 0) {
+                continue;
+            }
+
+            float drawLong = longOffset + ((iLoop - windowStart) * threeRadius);
+            if (mOrientation == HORIZONTAL) {
+                dX = drawLong;
+                dY = shortOffset;
+            } else {
+                dX = shortOffset;
+                dY = drawLong;
+            }
+            // Only paint fill if not completely transparent
+            if (mPaintPageFill.getAlpha() > 0) {
+                canvas.drawCircle(dX, dY, pageFillRadius * scale, mPaintPageFill);
+            }
+
+            // Only paint stroke if a stroke width was non-zero
+            if (pageFillRadius != mRadius) {
+                canvas.drawCircle(dX, dY, mRadius * scale, mPaintStroke);
+            }
+        }
+
+        //Draw the filled circle according to the current scroll
+        final float cx = (position - windowStart) * threeRadius;
         if (mOrientation == HORIZONTAL) {
             dX = longOffset + cx;
             dY = shortOffset;
@@ -278,6 +485,82 @@ public class CirclePageIndicator extends View implements PageIndicator {
         canvas.drawCircle(dX, dY, mRadius, mPaintFill);
     }
 
+    /**
+     * Scale of a circle {@code distance} pages inside the edge of the window:
+     * half size on the edge, full size one page in and gone one page out.
+     */
+    private static float getEdgeScale(float distance) {
+        return Math.max(0, Math.min(1, (distance + 1) / 2));
+    }
+
+    /**
+     * Offset of the center of the circles along the short axis.
+     */
+    private float getShortOffset() {
+        return ((mOrientation == HORIZONTAL) ? getPaddingTop() : getPaddingLeft()) + mRadius;
+    }
+
+    /**
+     * Offset of the center of the first circle along the long axis.
+     */
+    private float getLongOffset(int count) {
+        int longSize;
+        int longPaddingBefore;
+        int longPaddingAfter;
+        if (mOrientation == HORIZONTAL) {
+            longSize = getWidth();
+            longPaddingBefore = getPaddingLeft();
+            longPaddingAfter = getPaddingRight();
+        } else {
+            longSize = getHeight();
+            longPaddingBefore = getPaddingTop();
+            longPaddingAfter = getPaddingBottom();
+        }
+
+        float longOffset = longPaddingBefore + mRadius;
+        if (mCentered) {
+            longOffset += ((longSize - longPaddingBefore - longPaddingAfter) / 2.0f) - ((count * mRadius * 3) / 2.0f);
+        }
+        return longOffset;
+    }
+
+    /**
+     * Invalidate only the area covered by the filled circle at its current
+     * position.
+     */
+    private void invalidateFill() {
+        if (mViewPager == null) {
+            invalidate();
+            return;
+        }
+        final int count = mViewPager.getAdapter().getCount();
+        if ((count == 0) || isWindowed(count)) {
+            //Every circle moves when the window slides
+            invalidate();
+            return;
+        }
+
+        final float threeRadius = mRadius * 3;
+        float cx = (mSnap ? mSnapPage : mCurrentPage) * threeRadius;
+        if (!mSnap) {
+            cx += mPageOffset * threeRadius;
+        }
+        final float longCenter = getLongOffset(count) + cx;
+        final float shortCenter = getShortOffset();
+
+        //Include an extra pixel for antialiasing
+        final float extent = mRadius + 1;
+        final int longStart = (int) Math.floor(longCenter - extent);
+        final int longEnd = (int) Math.ceil(longCenter + extent);
+        final int shortStart = (int) Math.floor(shortCenter - extent);
+        final int shortEnd = (int) Math.ceil(shortCenter + extent);
+        if (mOrientation == HORIZONTAL) {
+            invalidate(longStart, shortStart, longEnd, shortEnd);
+        } else {
+            invalidate(shortStart, longStart, shortEnd, longEnd);
+        }
+    }
+
     public boolean onTouchEvent(android.view.MotionEvent ev) {
         if (super.onTouchEvent(ev)) {
             return true;
@@ -388,6 +671,7 @@ public class CirclePageIndicator extends View implements PageIndicator {
         if (mViewPager == null) {
             throw new IllegalStateException("ViewPager has not been bound.");
         }
+        mScrollCoalescer.flush();
         mViewPager.setCurrentItem(item);
         mCurrentPage = item;
         invalidate();
@@ -400,6 +684,7 @@ public class CirclePageIndicator extends View implements PageIndicator {
 
     @Override
     public void onPageScrollStateChanged(int state) {
+        mScrollCoalescer.setScrollState(state);
         mScrollState = state;
 
         if (mListener != null) {
@@ -409,9 +694,7 @@ public class CirclePageIndicator extends View implements PageIndicator {
 
     @Override
     public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
-        mCurrentPage = position;
-        mPageOffset = positionOffset;
-        invalidate();
+        mScrollCoalescer.post(position, positionOffset, positionOffsetPixels);
 
         if (mListener != null) {
             mListener.onPageScrolled(position, positionOffset, positionOffsetPixels);
@@ -420,10 +703,12 @@ public class CirclePageIndicator extends View implements PageIndicator {
 
     @Override
     public void onPageSelected(int position) {
+        mScrollCoalescer.flush();
         if (mSnap || mScrollState == ViewPager.SCROLL_STATE_IDLE) {
+            invalidateFill();
             mCurrentPage = position;
             mSnapPage = position;
-            invalidate();
+            invalidateFill();
         }
 
         if (mListener != null) {
@@ -436,6 +721,29 @@ public class CirclePageIndicator extends View implements PageIndicator {
         mListener = listener;
     }
 
+    /**
+     * Number of page scroll events which were skipped in the most recent
+     * frame because a newer one arrived before it was drawn.
+     */
+    public int getDroppedScrollEventCount() {
+        return mScrollCoalescer.getDroppedCount();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mLayerDirty = true;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mScrollCoalescer.detach();
+        //Release the layer memory; it is rebuilt on the next draw
+        mLayer = null;
+        mLayerDirty = true;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -467,7 +775,10 @@ public class CirclePageIndicator extends View implements PageIndicator {
             result = specSize;
         } else {
             //Calculate the width according the views count
-            final int count = mViewPager.getAdapter().getCount();
+            int count = mViewPager.getAdapter().getCount();
+            if (isWindowed(count)) {
+                count = mMaxVisibleDots;
+            }
             result = (int)(getPaddingLeft() + getPaddingRight()
                     + (count * 2 * mRadius) + (count - 1) * mRadius + 1);
             //Respect AT_MOST value if that was what is called for by measureSpec
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2012 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viewpagerindicator;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+
+/**
+ * The icon settings of an indicator, and the {@link IconLoader} which
+ * decodes its icons in the background, shared by the indicators which show
+ * page icons.
+ */
+class IconBinder {
+    private final Context mContext;
+    private final IconLoader.Callback mCallback;
+
+    private boolean mLoadInBackground;
+    private IconLoader mLoader;
+    private IconDecoder mDecoder;
+    private Drawable mPlaceholder;
+    private int mFocus;
+
+    public IconBinder(Context context, IconLoader.Callback callback) {
+        mContext = context;
+        mCallback = callback;
+    }
+
+    public boolean getLoadInBackground() {
+        return mLoadInBackground;
+    }
+
+    /**
+     * @return Whether the setting changed, in which case the icons must be
+     * bound again.
+     */
+    public boolean setLoadInBackground(boolean inBackground) {
+        if (inBackground == mLoadInBackground) {
+            return false;
+        }
+        mLoadInBackground = inBackground;
+        return true;
+    }
+
+    public IconDecoder getDecoder() {
+        return mDecoder;
+    }
+
+    public void setDecoder(IconDecoder decoder) {
+        mDecoder = decoder;
+        if (mLoader != null) {
+            mLoader.setDecoder(decoder);
+        }
+    }
+
+    public Drawable getPlaceholder() {
+        return mPlaceholder;
+    }
+
+    public void setPlaceholder(Drawable placeholder) {
+        mPlaceholder = placeholder;
+    }
+
+    /** Load the icons nearest the page at {@code index} first. */
+    public void setFocus(int index) {
+        mFocus = index;
+        if (mLoader != null) {
+            mLoader.setFocus(index);
+        }
+    }
+
+    /** Forget the icons which are loaded or loading for the previous adapter. */
+    public void reset() {
+        if (mLoader != null) {
+            mLoader.reset();
+            mLoader.setFocus(mFocus);
+        }
+    }
+
+    /** Whether the icon from {@code source} is decoded in the background. */
+    public boolean loadsInBackground(IconSource source) {
+        return mLoadInBackground || source.isStream();
+    }
+
+    /**
+     * Get the icon of the page at {@code index}, decoded no larger than the
+     * given size, or {@code null} if it is still loading in the background.
+     */
+    public Drawable get(int index, IconSource source, int maxWidth, int maxHeight) {
+        if (loadsInBackground(source)) {
+            return getLoader().get(index, source, maxWidth, maxHeight);
+        }
+        return IconCache.getInstance(mContext).getDrawable(source, maxWidth, maxHeight, mDecoder);
+    }
+
+    /**
+     * Get the icon a view would show for {@code source} without decoding it,
+     * which is the placeholder if it is still loading.
+     */
+    public Drawable peek(IconSource source, int maxWidth, int maxHeight) {
+        final Drawable icon = IconCache.getInstance(mContext).peekDrawable(source, maxWidth, maxHeight);
+        if (icon == null && loadsInBackground(source)) {
+            return mPlaceholder;
+        }
+        return icon;
+    }
+
+    /** A new instance of the placeholder for one view, or {@code null} if there is none. */
+    public Drawable newPlaceholder() {
+        if (mPlaceholder == null) {
+            return null;
+        }
+        //Every view needs its own drawable but they can share its state
+        final Drawable.ConstantState state = mPlaceholder.getConstantState();
+        return (state != null) ? state.newDrawable(mContext.getResources()) : mPlaceholder;
+    }
+
+    private IconLoader getLoader() {
+        if (mLoader == null) {
+            mLoader = new IconLoader(mContext, mCallback);
+            mLoader.setDecoder(mDecoder);
+            mLoader.setFocus(mFocus);
+        }
+        return mLoader;
+    }
+}
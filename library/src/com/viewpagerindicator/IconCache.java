@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2012 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viewpagerindicator;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.support.v4.util.LruCache;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+
+import java.io.IOException;
+
+/**
+ * A process wide cache of decoded page icons, bounded in bytes and evicting
+ * the least recently used first. Icons are decoded at the size they are
+ * displayed at, or smaller when a maximum size is given, so no memory is
+ * spent on pixels which are never shown. Icons which are not plain bitmaps,
+ * such as state lists, nine-patches or those from a
+ * {@link IconSource.DrawableProvider}, are loaded as usual and not cached.
+ */
+class IconCache {
+    /** Fraction of the maximum heap which the cache may use. */
+    private static final int HEAP_FRACTION = 32;
+
+    private static IconCache sInstance;
+
+    public static synchronized IconCache getInstance(Context context) {
+        if (sInstance == null) {
+            final int maxBytes = (int)Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / HEAP_FRACTION);
+            sInstance = new IconCache(context.getApplicationContext(), maxBytes);
+        }
+        return sInstance;
+    }
+
+    private final Context mContext;
+    private final Resources mResources;
+    private final LruCache<String, Bitmap> mCache;
+
+    IconCache(Context context, int maxBytes) {
+        mContext = context;
+        mResources = context.getResources();
+        mCache = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getRowBytes() * value.getHeight();
+            }
+        };
+    }
+
+    /**
+     * Get the icon from {@code source}, scaled down to fit inside
+     * {@code maxWidth} by {@code maxHeight} if it is larger. Files and Uris
+     * are read on the calling thread so they belong in the background.
+     *
+     * @param maxWidth Maximum width in pixels or 0 for no limit.
+     * @param maxHeight Maximum height in pixels or 0 for no limit.
+     */
+    public Drawable getDrawable(IconSource source, int maxWidth, int maxHeight, IconDecoder decoder) {
+        final Drawable cached = peekDrawable(source, maxWidth, maxHeight);
+        if (cached != null) {
+            return cached;
+        }
+        return toDrawable(source, loadBitmap(source, maxWidth, maxHeight, decoder));
+    }
+
+    /**
+     * Get the icon only if it has already been decoded, or {@code null}.
+     * Never decodes anything so it is cheap enough for the main thread.
+     * Icons from a provider need no decoding so are always returned.
+     */
+    public Drawable peekDrawable(IconSource source, int maxWidth, int maxHeight) {
+        if (source.getProvider() != null) {
+            return source.getProvider().getDrawable(mContext);
+        }
+        final String key = getKey(source, maxWidth, maxHeight);
+        final Bitmap bitmap = (key != null) ? mCache.get(key) : null;
+        return (bitmap != null) ? new BitmapDrawable(mResources, bitmap) : null;
+    }
+
+    /**
+     * Decode the icon into the cache unless it is already there. Safe to call
+     * from any thread.
+     *
+     * @param decoder Decoder for files and Uris, or {@code null} to stream them.
+     * @return The decoded bitmap, or {@code null} if the icon is not a plain
+     * bitmap and has to be loaded with {@link #toDrawable(IconSource, Bitmap)}.
+     */
+    public Bitmap loadBitmap(IconSource source, int maxWidth, int maxHeight, IconDecoder decoder) {
+        final String key = getKey(source, maxWidth, maxHeight);
+        if (key == null) {
+            return null;
+        }
+        Bitmap bitmap = mCache.get(key);
+        if (bitmap == null) {
+            if (source.isStream()) {
+                if (decoder == null) {
+                    decoder = StreamIconDecoder.INSTANCE;
+                }
+                try {
+                    bitmap = decoder.decode(mContext, source, maxWidth, maxHeight);
+                } catch (IOException e) {
+                    //Unreadable icons are simply not shown
+                    bitmap = null;
+                }
+                if (bitmap != null) {
+                    //Shown at the decoded size rather than scaled as if it were mdpi
+                    bitmap.setDensity(mResources.getDisplayMetrics().densityDpi);
+                }
+            } else {
+                bitmap = decode(source.getResId(), maxWidth, maxHeight);
+            }
+            if (bitmap != null) {
+                mCache.put(key, bitmap);
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Wrap a bitmap from {@link #loadBitmap(IconSource, int, int, IconDecoder)}
+     * in a drawable, or load the icon as usual if it was not a plain bitmap.
+     * Drawables are not thread safe so this belongs on the main thread.
+     */
+    public Drawable toDrawable(IconSource source, Bitmap bitmap) {
+        if (bitmap != null) {
+            return new BitmapDrawable(mResources, bitmap);
+        }
+        if (source.getResId() != 0) {
+            return mResources.getDrawable(source.getResId());
+        }
+        return null;
+    }
+
+    private static String getKey(IconSource source, int maxWidth, int maxHeight) {
+        final String key = source.getKey();
+        return (key != null) ? key + ":" + maxWidth + "x" + maxHeight : null;
+    }
+
+    /**
+     * Scale which shrinks {@code width} by {@code height} to fit inside the
+     * maximum size, but never enlarges it.
+     */
+    static float getFitScale(float width, float height, int maxWidth, int maxHeight) {
+        float fit = 1f;
+        if (maxWidth > 0) {
+            fit = Math.min(fit, maxWidth / width);
+        }
+        if (maxHeight > 0) {
+            fit = Math.min(fit, maxHeight / height);
+        }
+        return fit;
+    }
+
+    /**
+     * Largest power of two sample size which still decodes at least
+     * {@code width} by {@code height}, skipping whole rows and columns.
+     */
+    static int getSampleSize(int outWidth, int outHeight, int width, int height) {
+        int sampleSize = 1;
+        while (outWidth / (sampleSize * 2) >= width && outHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    /** Scale a decoded bitmap to exactly the size it is displayed at. */
+    static Bitmap scaleTo(Bitmap bitmap, int width, int height) {
+        if (bitmap.getWidth() == width && bitmap.getHeight() == height) {
+            return bitmap;
+        }
+        final Bitmap scaled = Bitmap.createScaledBitmap(bitmap, width, height, true);
+        if (scaled != bitmap) {
+            bitmap.recycle();
+        }
+        return scaled;
+    }
+
+    /**
+     * Decode a bitmap resource at its displayed size, or {@code null} if the
+     * resource is not a plain bitmap.
+     */
+    private Bitmap decode(int resId, int maxWidth, int maxHeight) {
+        final TypedValue value = new TypedValue();
+        mResources.getValue(resId, value, true);
+        if (value.string == null || value.string.toString().endsWith(".9.png")) {
+            return null;
+        }
+        final int targetDensity = mResources.getDisplayMetrics().densityDpi;
+        int density = value.density;
+        if (density == TypedValue.DENSITY_DEFAULT) {
+            density = DisplayMetrics.DENSITY_DEFAULT;
+        } else if (density == TypedValue.DENSITY_NONE) {
+            density = targetDensity;
+        }
+
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        options.inScaled = false;
+        BitmapFactory.decodeResource(mResources, resId, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        //Size the resources would display it at, shrunk to fit the maximum
+        float scale = targetDensity / (float)density;
+        scale *= getFitScale(options.outWidth * scale, options.outHeight * scale, maxWidth, maxHeight);
+        final int width = Math.max(1, Math.round(options.outWidth * scale));
+        final int height = Math.max(1, Math.round(options.outHeight * scale));
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = getSampleSize(options.outWidth, options.outHeight, width, height);
+        Bitmap bitmap = BitmapFactory.decodeResource(mResources, resId, options);
+        if (bitmap == null) {
+            return null;
+        }
+        bitmap = scaleTo(bitmap, width, height);
+        bitmap.setDensity(targetDensity);
+        return bitmap;
+    }
+}
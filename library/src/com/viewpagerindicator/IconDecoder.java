@@ -0,0 +1,24 @@
+package com.viewpagerindicator;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import java.io.IOException;
+
+/**
+ * Decodes icons which are read from a file or {@link android.net.Uri}. The
+ * result is kept in a cache shared by every indicator so a decoder should
+ * always produce the same bitmap for the same source and size.
+ */
+public interface IconDecoder {
+    /**
+     * Decode the icon from {@code source}, scaled down to fit inside
+     * {@code maxWidth} by {@code maxHeight} if it is larger. This is called
+     * on a background thread.
+     *
+     * @param maxWidth Maximum width in pixels or 0 for no limit.
+     * @param maxHeight Maximum height in pixels or 0 for no limit.
+     * @return The icon or {@code null} if it could not be decoded.
+     */
+    Bitmap decode(Context context, IconSource source, int maxWidth, int maxHeight) throws IOException;
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2012 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viewpagerindicator;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.SparseArray;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes page icons into the {@link IconCache} on a small pool of
+ * background threads, delivering each one to a {@link Callback} on the main
+ * thread as it arrives. Icons of the pages nearest the focused page are
+ * decoded first since those are the ones on screen.
+ */
+class IconLoader {
+    /** Number of threads decoding icons, shared by all loaders. */
+    private static final int THREAD_COUNT = 2;
+
+    private static ThreadPoolExecutor sExecutor;
+    /** Order in which tasks were queued, to keep equal priorities in order. */
+    private static int sSequence;
+
+    /**
+     * Interface for a callback when the icon of a page has been loaded.
+     */
+    public interface Callback {
+        /**
+         * Callback on the main thread when an icon has been loaded.
+         *
+         * @param index Position of the page.
+         * @param source Source of the icon which was requested.
+         * @param icon Loaded icon of the page, or {@code null} if it could
+         * not be read.
+         */
+        void onIconLoaded(int index, IconSource source, Drawable icon);
+    }
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final IconCache mCache;
+    private final Callback mCallback;
+    private volatile IconDecoder mDecoder;
+
+    /** Queued or running task of each page. */
+    private final SparseArray<LoadTask> mPending = new SparseArray<LoadTask>();
+    private int mFocus;
+    private volatile int mGeneration;
+
+    public IconLoader(Context context, Callback callback) {
+        mCache = IconCache.getInstance(context);
+        mCallback = callback;
+    }
+
+    /**
+     * Decoder for icons from files and Uris, or {@code null} for the default
+     * one which streams them.
+     */
+    public void setDecoder(IconDecoder decoder) {
+        mDecoder = decoder;
+    }
+
+    /**
+     * Decode the icons of the pages nearest {@code index} first from now on.
+     */
+    public void setFocus(int index) {
+        mFocus = index;
+    }
+
+    /**
+     * Cancel every icon which is queued or still decoding. Icons which are
+     * already decoding finish but are never delivered.
+     */
+    public void reset() {
+        mGeneration++;
+        final ThreadPoolExecutor executor = getExecutor();
+        for (int i = 0; i < mPending.size(); i++) {
+            executor.remove(mPending.valueAt(i));
+        }
+        mPending.clear();
+    }
+
+    /**
+     * Get the icon of the page at {@code index} if it has been decoded,
+     * otherwise start decoding it and return {@code null}.
+     *
+     * @param maxWidth Maximum width in pixels or 0 for no limit.
+     * @param maxHeight Maximum height in pixels or 0 for no limit.
+     */
+    public Drawable get(int index, IconSource source, int maxWidth, int maxHeight) {
+        final Drawable icon = mCache.peekDrawable(source, maxWidth, maxHeight);
+        if (icon != null) {
+            return icon;
+        }
+        final LoadTask pending = mPending.get(index);
+        if (pending != null) {
+            if (pending.mSource.equals(source) && pending.mMaxWidth == maxWidth && pending.mMaxHeight == maxHeight) {
+                return null;
+            }
+            getExecutor().remove(pending);
+        }
+        final LoadTask task = new LoadTask(index, source, maxWidth, maxHeight, Math.abs(index - mFocus));
+        mPending.put(index, task);
+        getExecutor().execute(task);
+        return null;
+    }
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (sExecutor == null) {
+            sExecutor = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT, 0, TimeUnit.MILLISECONDS,
+                    new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "ViewPagerIndicator icons");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sExecutor;
+    }
+
+    private class LoadTask implements Runnable, Comparable<LoadTask> {
+        private final int mIndex;
+        private final IconSource mSource;
+        private final int mMaxWidth;
+        private final int mMaxHeight;
+        private final int mPriority;
+        private final int mSequence;
+        private final int mTaskGeneration;
+        private volatile boolean mLoaded;
+        private volatile Bitmap mBitmap;
+
+        LoadTask(int index, IconSource source, int maxWidth, int maxHeight, int priority) {
+            mIndex = index;
+            mSource = source;
+            mMaxWidth = maxWidth;
+            mMaxHeight = maxHeight;
+            mPriority = priority;
+            mSequence = sSequence++;
+            mTaskGeneration = mGeneration;
+        }
+
+        @Override
+        public int compareTo(LoadTask other) {
+            if (mPriority != other.mPriority) {
+                return (mPriority < other.mPriority) ? -1 : 1;
+            }
+            return (mSequence < other.mSequence) ? -1 : (mSequence == other.mSequence ? 0 : 1);
+        }
+
+        @Override
+        public void run() {
+            if (!mLoaded) {
+                //Background thread: decode the icon then hop back to the main thread
+                if (mTaskGeneration != mGeneration) {
+                    return;
+                }
+                mBitmap = mCache.loadBitmap(mSource, mMaxWidth, mMaxHeight, mDecoder);
+                mLoaded = true;
+                mHandler.post(this);
+            } else if (mTaskGeneration == mGeneration && mPending.get(mIndex) == this) {
+                mPending.remove(mIndex);
+                mCallback.onIconLoaded(mIndex, mSource, mCache.toDrawable(mSource, mBitmap));
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package com.viewpagerindicator;
 
 import android.content.Context;
+import android.graphics.drawable.Drawable;
 import android.support.v4.view.PagerAdapter;
 import android.support.v4.view.ViewPager;
 import android.support.v4.view.ViewPager.OnPageChangeListener;
@@ -38,8 +39,24 @@ public class IconPageIndicator extends HorizontalScrollView implements PageIndic
 
     private ViewPager mViewPager;
     private OnPageChangeListener mListener;
-    private Runnable mIconSelector;
+    /** Icon the pending selector will scroll to, or -1 if none is pending. */
+    private int mIconSelectorIndex = -1;
     private int mSelectedIndex;
+    /** Index of the icon view whose selected state is set, or -1 if none. */
+    private int mSelectedIconViewIndex = -1;
+
+    private final IconBinder mIconBinder;
+    /** Maximum height the icons were bound with, or -1 if they need binding. */
+    private int mIconMaxHeight = -1;
+    private final IconLoader.Callback mIconLoadedCallback = new IconLoader.Callback() {
+        @Override
+        public void onIconLoaded(int index, IconSource source, Drawable icon) {
+            //Views are recreated along with a reset of the loader so the index still matches
+            if (index < mIconsLayout.getChildCount()) {
+                ((ImageView)mIconsLayout.getChildAt(index)).setImageDrawable(icon);
+            }
+        }
+    };
 
     public IconPageIndicator(Context context) {
         this(context, null);
@@ -49,29 +66,100 @@ public class IconPageIndicator extends HorizontalScrollView implements PageIndic
         super(context, attrs);
         setHorizontalScrollBarEnabled(false);
 
+        mIconBinder = new IconBinder(context, mIconLoadedCallback);
         mIconsLayout = new IcsLinearLayout(context, R.attr.vpiIconPageIndicatorStyle);
         addView(mIconsLayout, new LayoutParams(WRAP_CONTENT, FILL_PARENT, Gravity.CENTER));
     }
 
-    private void animateToIcon(final int position) {
-        final View iconView = mIconsLayout.getChildAt(position);
-        if (mIconSelector != null) {
-            removeCallbacks(mIconSelector);
+    @Override
+    public void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        //Icons are never shown taller than a fixed height strip so do not decode them any larger.
+        //Otherwise the spec is only the space the parent has left, which may change between its
+        //measure passes, so decode them at their natural size.
+        final int maxIconHeight = (MeasureSpec.getMode(heightMeasureSpec) == MeasureSpec.EXACTLY)
+                ? Math.max(0, MeasureSpec.getSize(heightMeasureSpec) - getPaddingTop() - getPaddingBottom()) : 0;
+        if (mViewPager != null && maxIconHeight != mIconMaxHeight) {
+            bindIcons(maxIconHeight);
+        }
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
+    public boolean getLoadIconsInBackground() {
+        return mIconBinder.getLoadInBackground();
+    }
+
+    /**
+     * Decode icons on a background thread instead of while the adapter is
+     * bound, starting with the ones nearest the current page. Until its icon
+     * is ready a page shows the placeholder, if there is one. Icons from
+     * files and Uris are always loaded in the background.
+     *
+     * @see #setIconPlaceholder(Drawable)
+     */
+    public void setLoadIconsInBackground(boolean inBackground) {
+        if (mIconBinder.setLoadInBackground(inBackground) && mViewPager != null) {
+            notifyDataSetChanged();
         }
-        mIconSelector = new Runnable() {
-            public void run() {
-                final int scrollPos = iconView.getLeft() - (getWidth() - iconView.getWidth()) / 2;
-                smoothScrollTo(scrollPos, 0);
-                mIconSelector = null;
+    }
+
+    public IconDecoder getIconDecoder() {
+        return mIconBinder.getDecoder();
+    }
+
+    /**
+     * Decoder for the icons of an {@link IconSourcePagerAdapter} which come
+     * from files and Uris.
+     *
+     * @param decoder Decoder to use or {@code null} to stream them with
+     * {@link android.graphics.BitmapFactory}.
+     */
+    public void setIconDecoder(IconDecoder decoder) {
+        mIconBinder.setDecoder(decoder);
+    }
+
+    public Drawable getIconPlaceholder() {
+        return mIconBinder.getPlaceholder();
+    }
+
+    /**
+     * Drawable shown for an icon which is still being loaded in the
+     * background. Ideally the same size as the icons so that nothing moves
+     * when they arrive.
+     */
+    public void setIconPlaceholder(Drawable placeholder) {
+        mIconBinder.setPlaceholder(placeholder);
+    }
+
+    private final Runnable mIconSelector = new Runnable() {
+        public void run() {
+            final int position = mIconSelectorIndex;
+            mIconSelectorIndex = -1;
+            if (position < 0) {
+                return;
+            }
+
+            final View iconView = mIconsLayout.getChildAt(position);
+            if (iconView == null) {
+                return;
             }
-        };
-        post(mIconSelector);
+            final int scrollPos = iconView.getLeft() - (getWidth() - iconView.getWidth()) / 2;
+            smoothScrollTo(scrollPos, 0);
+        }
+    };
+
+    private void animateToIcon(int position) {
+        //Requests before the selector runs only move its target
+        final boolean pending = (mIconSelectorIndex >= 0);
+        mIconSelectorIndex = position;
+        if (!pending) {
+            post(mIconSelector);
+        }
     }
 
     @Override
     public void onAttachedToWindow() {
         super.onAttachedToWindow();
-        if (mIconSelector != null) {
+        if (mIconSelectorIndex >= 0) {
             // Re-post the selector we saved
             post(mIconSelector);
         }
@@ -80,9 +168,7 @@ public class IconPageIndicator extends HorizontalScrollView implements PageIndic
     @Override
     public void onDetachedFromWindow() {
         super.onDetachedFromWindow();
-        if (mIconSelector != null) {
-            removeCallbacks(mIconSelector);
-        }
+        removeCallbacks(mIconSelector);
     }
 
     @Override
@@ -126,13 +212,17 @@ public class IconPageIndicator extends HorizontalScrollView implements PageIndic
 
     public void notifyDataSetChanged() {
         mIconsLayout.removeAllViews();
-        IconPagerAdapter iconAdapter = (IconPagerAdapter) mViewPager.getAdapter();
-        int count = iconAdapter.getCount();
+        mSelectedIconViewIndex = -1;
+        PagerAdapter adapter = mViewPager.getAdapter();
+        int count = adapter.getCount();
+        //Icons of the previous adapter are no longer needed
+        mIconBinder.reset();
         for (int i = 0; i < count; i++) {
             ImageView view = new ImageView(getContext(), null, R.attr.vpiIconPageIndicatorStyle);
-            view.setImageResource(iconAdapter.getIconResId(i));
             mIconsLayout.addView(view);
         }
+        //Icons are bound once the height they are limited to is known
+        mIconMaxHeight = -1;
         if (mSelectedIndex > count) {
             mSelectedIndex = count - 1;
         }
@@ -140,6 +230,32 @@ public class IconPageIndicator extends HorizontalScrollView implements PageIndic
         requestLayout();
     }
 
+    /**
+     * Give every icon view its icon, decoded no taller than
+     * {@code maxIconHeight}. Views which already show an icon keep it until
+     * one of the new size has loaded.
+     */
+    private void bindIcons(int maxIconHeight) {
+        mIconMaxHeight = maxIconHeight;
+        final PagerAdapter adapter = mViewPager.getAdapter();
+        final int count = mIconsLayout.getChildCount();
+        for (int i = 0; i < count; i++) {
+            final ImageView view = (ImageView)mIconsLayout.getChildAt(i);
+            final IconSource source = IconSource.forPage(adapter, i);
+            Drawable icon = null;
+            if (source != null) {
+                icon = mIconBinder.get(i, source, 0, maxIconHeight);
+                if (icon == null) {
+                    if (view.getDrawable() != null) {
+                        continue;
+                    }
+                    icon = mIconBinder.newPlaceholder();
+                }
+            }
+            view.setImageDrawable(icon);
+        }
+    }
+
     @Override
     public void setViewPager(ViewPager view, int initialPosition) {
         setViewPager(view);
@@ -153,15 +269,18 @@ public class IconPageIndicator extends HorizontalScrollView implements PageIndic
         }
         mSelectedIndex = item;
         mViewPager.setCurrentItem(item);
+        mIconBinder.setFocus(item);
 
+        //Only the previously and newly selected icons change state
         int tabCount = mIconsLayout.getChildCount();
-        for (int i = 0; i < tabCount; i++) {
-            View child = mIconsLayout.getChildAt(i);
-            boolean isSelected = (i == item);
-            child.setSelected(isSelected);
-            if (isSelected) {
-                animateToIcon(item);
-            }
+        if (mSelectedIconViewIndex != item && mSelectedIconViewIndex >= 0 && mSelectedIconViewIndex < tabCount) {
+            mIconsLayout.getChildAt(mSelectedIconViewIndex).setSelected(false);
+        }
+        mSelectedIconViewIndex = -1;
+        if (item >= 0 && item < tabCount) {
+            mIconsLayout.getChildAt(item).setSelected(true);
+            mSelectedIconViewIndex = item;
+            animateToIcon(item);
         }
     }
 
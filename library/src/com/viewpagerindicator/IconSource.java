@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2012 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viewpagerindicator;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.support.v4.view.PagerAdapter;
+
+import java.io.File;
+
+/**
+ * Where the icon of a page comes from: a packaged resource, a local file, a
+ * content {@link Uri} or a {@link DrawableProvider}. Files and Uris are
+ * always read on a background thread by an {@link IconDecoder} and are shown
+ * at their decoded pixel size. They are cached by path or Uri, so an icon
+ * whose contents change should be given a new one.
+ */
+public final class IconSource {
+    private static final int TYPE_RESOURCE = 0;
+    private static final int TYPE_FILE = 1;
+    private static final int TYPE_URI = 2;
+    private static final int TYPE_PROVIDER = 3;
+
+    /**
+     * Interface supplying an icon drawable directly.
+     */
+    public interface DrawableProvider {
+        /**
+         * Get the icon drawable. This is called on the main thread.
+         */
+        Drawable getDrawable(Context context);
+    }
+
+    public static IconSource fromResource(int resId) {
+        return new IconSource(TYPE_RESOURCE, resId, null, null, null);
+    }
+
+    public static IconSource fromFile(File file) {
+        return new IconSource(TYPE_FILE, 0, file, null, null);
+    }
+
+    public static IconSource fromFile(String path) {
+        return fromFile(new File(path));
+    }
+
+    /**
+     * Icon read from {@code uri} through the {@link android.content.ContentResolver},
+     * so any {@code content}, {@code file} or {@code android.resource} Uri.
+     */
+    public static IconSource fromUri(Uri uri) {
+        return new IconSource(TYPE_URI, 0, null, uri, null);
+    }
+
+    public static IconSource fromProvider(DrawableProvider provider) {
+        return new IconSource(TYPE_PROVIDER, 0, null, null, provider);
+    }
+
+    /**
+     * Get the icon of the page at {@code index} from either kind of icon
+     * adapter, or {@code null} if it has none.
+     */
+    static IconSource forPage(PagerAdapter adapter, int index) {
+        if (adapter instanceof IconSourcePagerAdapter) {
+            return ((IconSourcePagerAdapter)adapter).getIconSource(index);
+        }
+        if (adapter instanceof IconPagerAdapter) {
+            final int resId = ((IconPagerAdapter)adapter).getIconResId(index);
+            return (resId != 0) ? fromResource(resId) : null;
+        }
+        return null;
+    }
+
+    private final int mType;
+    private final int mResId;
+    private final File mFile;
+    private final Uri mUri;
+    private final DrawableProvider mProvider;
+
+    private IconSource(int type, int resId, File file, Uri uri, DrawableProvider provider) {
+        mType = type;
+        mResId = resId;
+        mFile = file;
+        mUri = uri;
+        mProvider = provider;
+    }
+
+    /** Resource id of the icon, or 0 if it is not a resource. */
+    public int getResId() {
+        return mResId;
+    }
+
+    /** File of the icon, or {@code null} if it is not a file. */
+    public File getFile() {
+        return mFile;
+    }
+
+    /** Uri of the icon, or {@code null} if it is not a Uri. */
+    public Uri getUri() {
+        return mUri;
+    }
+
+    /** Provider of the icon, or {@code null} if it is not a provider. */
+    public DrawableProvider getProvider() {
+        return mProvider;
+    }
+
+    /** Whether the icon has to be read from a file or Uri. */
+    boolean isStream() {
+        return mType == TYPE_FILE || mType == TYPE_URI;
+    }
+
+    /** Key of the icon in the {@link IconCache}. */
+    String getKey() {
+        switch (mType) {
+            case TYPE_RESOURCE:
+                return "res:" + mResId;
+            case TYPE_FILE:
+                return "file:" + mFile.getPath();
+            case TYPE_URI:
+                return "uri:" + mUri;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IconSource)) {
+            return false;
+        }
+        final IconSource other = (IconSource)o;
+        if (mType != other.mType) {
+            return false;
+        }
+        switch (mType) {
+            case TYPE_RESOURCE:
+                return mResId == other.mResId;
+            case TYPE_FILE:
+                return mFile.equals(other.mFile);
+            case TYPE_URI:
+                return mUri.equals(other.mUri);
+            default:
+                return mProvider == other.mProvider;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        switch (mType) {
+            case TYPE_RESOURCE:
+                return mResId;
+            case TYPE_FILE:
+                return mFile.hashCode();
+            case TYPE_URI:
+                return mUri.hashCode();
+            default:
+                return System.identityHashCode(mProvider);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return (mType == TYPE_PROVIDER) ? "provider:" + mProvider : getKey();
+    }
+}
@@ -0,0 +1,17 @@
+package com.viewpagerindicator;
+
+/**
+ * An adapter whose page icons are not only packaged resources. Indicators
+ * which display icons use {@link #getIconSource(int)} rather than
+ * {@link IconPagerAdapter#getIconResId(int)}.
+ */
+public interface IconSourcePagerAdapter {
+    /**
+     * Get where the icon representing the page at {@code index} in the
+     * adapter comes from, or {@code null} for no icon.
+     */
+    IconSource getIconSource(int index);
+
+    // From PagerAdapter
+    int getCount();
+}
@@ -3,6 +3,7 @@ package com.viewpagerindicator;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
+import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.view.View;
 import android.widget.LinearLayout;
@@ -30,6 +31,20 @@ class IcsLinearLayout extends LinearLayout {
     private int mShowDividers;
     private int mDividerPadding;
 
+    /** Number of children which are not gone before each child index. */
+    private int[] mVisibleChildrenBefore = new int[1];
+    private int mIndexedChildCount = -1;
+    /** Index at which to start looking for the next child being measured. */
+    private int mNextMeasureIndex;
+
+    /**
+     * Leading edge of each child in the layout orientation, including its
+     * divider. Gone children repeat the edge before them so it never
+     * decreases.
+     */
+    private int[] mChildEdges = new int[0];
+    private int mEdgeChildCount = -1;
+    private final Rect mClipBounds = new Rect();
 
     public IcsLinearLayout(Context context, int themeAttr) {
         super(context);
@@ -57,9 +72,17 @@ class IcsLinearLayout extends LinearLayout {
         requestLayout();
     }
 
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        //Children or their visibility can only have changed if we are being measured
+        updateVisibleChildIndex();
+        mNextMeasureIndex = 0;
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
     @Override
     protected void measureChildWithMargins(View child, int parentWidthMeasureSpec, int widthUsed, int parentHeightMeasureSpec, int heightUsed) {
-        final int index = indexOfChild(child);
+        final int index = findMeasuredChild(child);
         final int orientation = getOrientation();
         final LayoutParams params = (LayoutParams) child.getLayoutParams();
         if (hasDividerBeforeChildAt(index)) {
@@ -85,8 +108,97 @@ class IcsLinearLayout extends LinearLayout {
         super.measureChildWithMargins(child, parentWidthMeasureSpec, widthUsed, parentHeightMeasureSpec, heightUsed);
     }
 
+    /**
+     * Find the index of a child being measured. Children are measured in
+     * order, possibly in several passes, so look forward from the previous
+     * one and wrap around to the start for the next pass.
+     */
+    private int findMeasuredChild(View child) {
+        final int count = getChildCount();
+        final int start = Math.min(mNextMeasureIndex, count);
+        for (int i = start; i < count; i++) {
+            if (getChildAt(i) == child) {
+                mNextMeasureIndex = i + 1;
+                return i;
+            }
+        }
+        for (int i = 0; i < start; i++) {
+            if (getChildAt(i) == child) {
+                mNextMeasureIndex = i + 1;
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Count the children which are not gone before each child, so whether a
+     * child has a divider before it is known without scanning.
+     */
+    private void updateVisibleChildIndex() {
+        final int count = getChildCount();
+        if (mVisibleChildrenBefore.length < count + 1) {
+            mVisibleChildrenBefore = new int[count + 1];
+        }
+        int visible = 0;
+        for (int i = 0; i < count; i++) {
+            mVisibleChildrenBefore[i] = visible;
+            if (getChildAt(i).getVisibility() != GONE) {
+                visible++;
+            }
+        }
+        mVisibleChildrenBefore[count] = visible;
+        mIndexedChildCount = count;
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+        updateChildEdges();
+    }
+
+    private void updateChildEdges() {
+        final int count = getChildCount();
+        if (mChildEdges.length < count) {
+            mChildEdges = new int[count];
+        }
+        final boolean vertical = getOrientation() == VERTICAL;
+        int edge = vertical ? getPaddingTop() : getPaddingLeft();
+        for (int i = 0; i < count; i++) {
+            final View child = getChildAt(i);
+            if (child.getVisibility() != GONE) {
+                final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+                edge = vertical ? child.getTop() - lp.topMargin : child.getLeft() - lp.leftMargin;
+            }
+            mChildEdges[i] = edge;
+        }
+        mEdgeChildCount = count;
+    }
+
+    /**
+     * Index of the first child whose leading edge is after {@code position},
+     * or the child count if there is none.
+     */
+    private int findFirstChildAfter(int position) {
+        int low = 0;
+        int high = mEdgeChildCount;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (mChildEdges[mid] > position) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
+        if (mIndexedChildCount != getChildCount()) {
+            //Children were changed without a measure
+            updateVisibleChildIndex();
+        }
         if (mDivider != null) {
             if (getOrientation() == VERTICAL) {
                 drawDividersVertical(canvas);
@@ -99,7 +211,17 @@ class IcsLinearLayout extends LinearLayout {
 
     private void drawDividersVertical(Canvas canvas) {
         final int count = getChildCount();
-        for (int i = 0; i < count; i++) {
+        if (!canvas.getClipBounds(mClipBounds)) {
+            //Nothing inside the clip can be drawn
+            return;
+        }
+        //Only visit the children whose divider can be inside the clip
+        final boolean cull = (mEdgeChildCount == count);
+        final int first = cull ? findFirstChildAfter(mClipBounds.top - mDividerHeight) : 0;
+        for (int i = first; i < count; i++) {
+            if (cull && mChildEdges[i] >= mClipBounds.bottom) {
+                break;
+            }
             final View child = getChildAt(i);
 
             if (child != null && child.getVisibility() != GONE) {
@@ -126,7 +248,17 @@ class IcsLinearLayout extends LinearLayout {
 
     private void drawDividersHorizontal(Canvas canvas) {
         final int count = getChildCount();
-        for (int i = 0; i < count; i++) {
+        if (!canvas.getClipBounds(mClipBounds)) {
+            //Nothing inside the clip can be drawn
+            return;
+        }
+        //Only visit the children whose divider can be inside the clip
+        final boolean cull = (mEdgeChildCount == count);
+        final int first = cull ? findFirstChildAfter(mClipBounds.left - mDividerWidth) : 0;
+        for (int i = first; i < count; i++) {
+            if (cull && mChildEdges[i] >= mClipBounds.right) {
+                break;
+            }
             final View child = getChildAt(i);
 
             if (child != null && child.getVisibility() != GONE) {
@@ -168,14 +300,7 @@ class IcsLinearLayout extends LinearLayout {
           return false;
         }
         if ((mShowDividers & SHOW_DIVIDER_MIDDLE) != 0) {
-            boolean hasVisibleViewBefore = false;
-            for (int i = childIndex - 1; i >= 0; i--) {
-                if (getChildAt(i).getVisibility() != GONE) {
-                    hasVisibleViewBefore = true;
-                    break;
-                }
-            }
-            return hasVisibleViewBefore;
+            return mVisibleChildrenBefore[childIndex] > 0;
         }
         return false;
     }
@@ -47,12 +47,29 @@ public class LinePageIndicator extends View implements PageIndicator {
     private boolean mCentered;
     private float mLineWidth;
     private float mGapWidth;
+    private int mMaxVisibleLines;
+    private int mScrollState;
+    private float mScrollPosition;
 
     private int mTouchSlop;
     private float mLastMotionX = -1;
     private int mActivePointerId = INVALID_POINTER;
     private boolean mIsDragging;
 
+    /** Reused endpoints of the unselected lines, four floats per line. */
+    private float[] mLinePoints = new float[0];
+
+    /** Applies at most one scroll event per frame. */
+    private final ScrollCoalescer mScrollCoalescer = new ScrollCoalescer(this, new ScrollCoalescer.Callback() {
+        @Override
+        public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+            mScrollPosition = position + positionOffset;
+            //Lines only move when windowed
+            if ((mViewPager != null) && isWindowed(mViewPager.getAdapter().getCount())) {
+                invalidate();
+            }
+        }
+    });
 
     public LinePageIndicator(Context context) {
         this(context, null);
@@ -153,6 +170,27 @@ public class LinePageIndicator extends View implements PageIndicator {
         return mGapWidth;
     }
 
+    /**
+     * Limit the number of lines shown at once. When there are more pages than
+     * this only the lines around the current page are shown and they scroll
+     * along with the pager.
+     *
+     * @param maxVisibleLines Maximum number of lines or 0 to always show a
+     *            line for every page.
+     */
+    public void setMaxVisibleLines(int maxVisibleLines) {
+        if (maxVisibleLines < 0) {
+            throw new IllegalArgumentException("Maximum visible lines must not be negative.");
+        }
+        mMaxVisibleLines = maxVisibleLines;
+        requestLayout();
+        invalidate();
+    }
+
+    public int getMaxVisibleLines() {
+        return mMaxVisibleLines;
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
@@ -171,23 +209,117 @@ public class LinePageIndicator extends View implements PageIndicator {
         }
 
         final float lineWidthAndGap = mLineWidth + mGapWidth;
-        final float indicatorWidth = (count * lineWidthAndGap) - mGapWidth;
+        final float verticalOffset = getVerticalOffset();
+
+        //Only the lines inside the window are drawn when it is enabled
+        int first = 0;
+        int last = count - 1;
+        int visibleCount = count;
+        float windowStart = 0;
+        final boolean windowed = isWindowed(count);
+        if (windowed) {
+            windowStart = getWindowStart(count);
+            first = (int) FloatMath.floor(windowStart);
+            last = Math.min(count - 1, (int) FloatMath.ceil(windowStart + mMaxVisibleLines - 1));
+            visibleCount = mMaxVisibleLines;
+        }
+        final float windowOffset = getHorizontalOffset(visibleCount);
+        final float horizontalOffset = windowOffset - (windowStart * lineWidthAndGap);
+
+        if (windowed) {
+            //Cut off the lines partially scrolled out of the window
+            canvas.save();
+            canvas.clipRect(windowOffset, 0, windowOffset + (visibleCount * lineWidthAndGap) - mGapWidth, getHeight());
+        }
+
+        //Draw all unselected lines in a single call. Room is kept for every
+        //line in range since the current page may not be one of them.
+        final int size = (last - first + 1) * 4;
+        if (mLinePoints.length < size) {
+            mLinePoints = new float[size];
+        }
+        int offset = 0;
+        for (int i = first; i <= last; i++) {
+            if (i == mCurrentPage) {
+                continue;
+            }
+            final float dx1 = horizontalOffset + (i * lineWidthAndGap);
+            mLinePoints[offset++] = dx1;
+            mLinePoints[offset++] = verticalOffset;
+            mLinePoints[offset++] = dx1 + mLineWidth;
+            mLinePoints[offset++] = verticalOffset;
+        }
+        if (offset > 0) {
+            canvas.drawLines(mLinePoints, 0, offset, mPaintUnselected);
+        }
+
+        //Draw the selected line
+        if (mCurrentPage >= first && mCurrentPage <= last) {
+            final float dx1 = horizontalOffset + (mCurrentPage * lineWidthAndGap);
+            canvas.drawLine(dx1, verticalOffset, dx1 + mLineWidth, verticalOffset, mPaintSelected);
+        }
+
+        if (windowed) {
+            canvas.restore();
+        }
+    }
+
+    private boolean isWindowed(int count) {
+        return (mMaxVisibleLines > 0) && (count > mMaxVisibleLines);
+    }
+
+    /**
+     * Page shown by the first line of the window. Fractional while scrolling
+     * so that the window follows the pager smoothly.
+     */
+    private float getWindowStart(int count) {
+        final float start = mScrollPosition - ((mMaxVisibleLines - 1) / 2.0f);
+        return Math.max(0, Math.min(count - mMaxVisibleLines, start));
+    }
+
+    private float getVerticalOffset() {
         final float paddingTop = getPaddingTop();
+        return paddingTop + ((getHeight() - paddingTop - getPaddingBottom()) / 2.0f);
+    }
+
+    /**
+     * Horizontal offset of the start of the first line.
+     */
+    private float getHorizontalOffset(int count) {
+        final float indicatorWidth = (count * (mLineWidth + mGapWidth)) - mGapWidth;
         final float paddingLeft = getPaddingLeft();
         final float paddingRight = getPaddingRight();
 
-        float verticalOffset = paddingTop + ((getHeight() - paddingTop - getPaddingBottom()) / 2.0f);
         float horizontalOffset = paddingLeft;
         if (mCentered) {
             horizontalOffset += ((getWidth() - paddingLeft - paddingRight) / 2.0f) - (indicatorWidth / 2.0f);
         }
+        return horizontalOffset;
+    }
 
-        //Draw stroked circles
-        for (int i = 0; i < count; i++) {
-            float dx1 = horizontalOffset + (i * lineWidthAndGap);
-            float dx2 = dx1 + mLineWidth;
-            canvas.drawLine(dx1, verticalOffset, dx2, verticalOffset, (i == mCurrentPage) ? mPaintSelected : mPaintUnselected);
+    /**
+     * Invalidate only the area covered by the line of the page at
+     * {@code index}.
+     */
+    private void invalidateLine(int index) {
+        if (mViewPager == null) {
+            invalidate();
+            return;
         }
+        final int count = mViewPager.getAdapter().getCount();
+        if ((count == 0) || isWindowed(count)) {
+            //Every line moves when the window scrolls
+            invalidate();
+            return;
+        }
+
+        final float dx1 = getHorizontalOffset(count) + (index * (mLineWidth + mGapWidth));
+        final float dx2 = dx1 + mLineWidth;
+        final float verticalOffset = getVerticalOffset();
+        //Include an extra pixel for antialiasing
+        final float halfStroke = (mPaintSelected.getStrokeWidth() / 2) + 1;
+        invalidate((int) FloatMath.floor(dx1 - 1), (int) FloatMath.floor(verticalOffset - halfStroke),
+                (int) FloatMath.ceil(dx2 + 1), (int) FloatMath.ceil(verticalOffset + halfStroke));
     }
 
     public boolean onTouchEvent(android.view.MotionEvent ev) {
@@ -301,8 +433,10 @@ public class LinePageIndicator extends View implements PageIndicator {
         if (mViewPager == null) {
             throw new IllegalStateException("ViewPager has not been bound.");
         }
+        mScrollCoalescer.flush();
         mViewPager.setCurrentItem(item);
         mCurrentPage = item;
+        mScrollPosition = item;
         invalidate();
     }
 
@@ -313,6 +447,9 @@ public class LinePageIndicator extends View implements PageIndicator {
 
     @Override
     public void onPageScrollStateChanged(int state) {
+        mScrollCoalescer.setScrollState(state);
+        mScrollState = state;
+
         if (mListener != null) {
             mListener.onPageScrollStateChanged(state);
         }
@@ -320,6 +457,8 @@ public class LinePageIndicator extends View implements PageIndicator {
 
     @Override
     public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+        mScrollCoalescer.post(position, positionOffset, positionOffsetPixels);
+
         if (mListener != null) {
             mListener.onPageScrolled(position, positionOffset, positionOffsetPixels);
         }
@@ -327,8 +466,14 @@ public class LinePageIndicator extends View implements PageIndicator {
 
     @Override
     public void onPageSelected(int position) {
+        mScrollCoalescer.flush();
+        //Only the previously and newly selected lines change
+        invalidateLine(mCurrentPage);
         mCurrentPage = position;
-        invalidate();
+        if (mScrollState == ViewPager.SCROLL_STATE_IDLE) {
+            mScrollPosition = position;
+        }
+        invalidateLine(mCurrentPage);
 
         if (mListener != null) {
             mListener.onPageSelected(position);
@@ -340,6 +485,20 @@ public class LinePageIndicator extends View implements PageIndicator {
         mListener = listener;
     }
 
+    /**
+     * Number of page scroll events which were skipped in the most recent
+     * frame because a newer one arrived before it was drawn.
+     */
+    public int getDroppedScrollEventCount() {
+        return mScrollCoalescer.getDroppedCount();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mScrollCoalescer.detach();
+    }
+
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         setMeasuredDimension(measureWidth(widthMeasureSpec), measureHeight(heightMeasureSpec));
@@ -362,7 +521,10 @@ public class LinePageIndicator extends View implements PageIndicator {
             result = specSize;
         } else {
             //Calculate the width according the views count
-            final int count = mViewPager.getAdapter().getCount();
+            int count = mViewPager.getAdapter().getCount();
+            if (isWindowed(count)) {
+                count = mMaxVisibleLines;
+            }
             result = getPaddingLeft() + getPaddingRight() + (count * mLineWidth) + ((count - 1) * mGapWidth);
             //Respect AT_MOST value if that was what is called for by measureSpec
             if (specMode == MeasureSpec.AT_MOST) {
@@ -403,6 +565,7 @@ public class LinePageIndicator extends View implements PageIndicator {
         SavedState savedState = (SavedState)state;
         super.onRestoreInstanceState(savedState.getSuperState());
         mCurrentPage = savedState.currentPage;
+        mScrollPosition = mCurrentPage;
         requestLayout();
     }
 
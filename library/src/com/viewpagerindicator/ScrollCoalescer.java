@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2012 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viewpagerindicator;
+
+import android.os.Build;
+import android.support.v4.view.ViewPager;
+import android.view.Choreographer;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+/**
+ * Collapses the page scroll events a {@code ViewPager} delivers so that only
+ * the latest one is applied, at most once per frame. On Jelly Bean and newer
+ * the event is applied from a {@link Choreographer} frame callback, otherwise
+ * it is posted to the view. While the pager is scrolling, events which arrive
+ * during a traversal, such as those from {@code ViewPager.computeScroll()}
+ * while it settles, are applied straight away since deferring them would
+ * leave the indicator a frame behind.
+ */
+class ScrollCoalescer implements Runnable {
+    /**
+     * Interface for a callback when a coalesced scroll event is applied.
+     */
+    public interface Callback {
+        /**
+         * Callback with the most recent scroll event since the last one which
+         * was applied.
+         */
+        void onPageScrolled(int position, float positionOffset, int positionOffsetPixels);
+    }
+
+    private final View mView;
+    private final Callback mCallback;
+    private final JellyBeanFrameCallback mFrameCallback;
+
+    private boolean mPending;
+    private int mPosition;
+    private float mPositionOffset;
+    private int mPositionOffsetPixels;
+    private int mDroppedCount;
+    private int mFrameDroppedCount;
+
+    /** Whether the pager is not idle, so traversals are being watched. */
+    private boolean mScrolling;
+    private ViewTreeObserver mObserver;
+    private boolean mInTraversal;
+    private final ViewTreeObserver.OnPreDrawListener mPreDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            if (!mInTraversal) {
+                //Anything posted now runs once the traversal has finished
+                mInTraversal = true;
+                mView.post(mTraversalEnd);
+            }
+            return true;
+        }
+    };
+    private final Runnable mTraversalEnd = new Runnable() {
+        @Override
+        public void run() {
+            mInTraversal = false;
+        }
+    };
+
+    public ScrollCoalescer(View view, Callback callback) {
+        mView = view;
+        mCallback = callback;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mFrameCallback = new JellyBeanFrameCallback(this);
+        } else {
+            mFrameCallback = null;
+        }
+    }
+
+    /**
+     * Record a scroll event to be applied on the next frame, replacing any
+     * which has not yet been applied. During a traversal it is applied
+     * immediately.
+     */
+    public void post(int position, float positionOffset, int positionOffsetPixels) {
+        if (mScrolling) {
+            //The view may not have had a window when the scroll started
+            watchTraversals();
+        }
+
+        mPosition = position;
+        mPositionOffset = positionOffset;
+        mPositionOffsetPixels = positionOffsetPixels;
+        final boolean replaced = mPending;
+        if (replaced) {
+            mDroppedCount++;
+        }
+        if (mInTraversal) {
+            if (replaced) {
+                cancel();
+            }
+            mPending = true;
+            run();
+        } else if (!replaced) {
+            mPending = true;
+            if (mFrameCallback != null) {
+                mFrameCallback.post();
+            } else {
+                mView.post(this);
+            }
+        }
+    }
+
+    /**
+     * Immediately apply the pending scroll event, if any. This must be called
+     * before handling any other page change event so they are still seen in
+     * the order the pager sent them.
+     */
+    public void flush() {
+        if (!mPending) {
+            return;
+        }
+        cancel();
+        run();
+    }
+
+    /**
+     * Apply the pending scroll event and only watch for traversals while
+     * the pager is not idle, so an idle pager costs nothing per frame. Must
+     * be called with every scroll state change of the pager.
+     */
+    public void setScrollState(int state) {
+        flush();
+        mScrolling = (state != ViewPager.SCROLL_STATE_IDLE);
+        if (mScrolling) {
+            watchTraversals();
+        } else {
+            stopWatchingTraversals();
+        }
+    }
+
+    /**
+     * Apply the pending scroll event and stop watching for traversals. Must
+     * be called when the view is detached from its window.
+     */
+    public void detach() {
+        flush();
+        stopWatchingTraversals();
+    }
+
+    /**
+     * Number of scroll events which were replaced by a later one before the
+     * most recently applied one, so those dropped in its frame.
+     */
+    public int getDroppedCount() {
+        return mFrameDroppedCount;
+    }
+
+    private void watchTraversals() {
+        if (mObserver == null && mView.getWindowToken() != null) {
+            mObserver = mView.getViewTreeObserver();
+            mObserver.addOnPreDrawListener(mPreDrawListener);
+        }
+    }
+
+    private void stopWatchingTraversals() {
+        if (mObserver != null) {
+            if (mObserver.isAlive()) {
+                mObserver.removeOnPreDrawListener(mPreDrawListener);
+            }
+            mObserver = null;
+        }
+        mView.removeCallbacks(mTraversalEnd);
+        mInTraversal = false;
+    }
+
+    private void cancel() {
+        if (mFrameCallback != null) {
+            mFrameCallback.cancel();
+        } else {
+            mView.removeCallbacks(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        if (mPending) {
+            mPending = false;
+            mFrameDroppedCount = mDroppedCount;
+            mDroppedCount = 0;
+            mCallback.onPageScrolled(mPosition, mPositionOffset, mPositionOffsetPixels);
+        }
+    }
+
+    /** Kept separate so that {@link Choreographer} is only loaded where it exists. */
+    private static class JellyBeanFrameCallback implements Choreographer.FrameCallback {
+        private final Runnable mRunnable;
+
+        JellyBeanFrameCallback(Runnable runnable) {
+            mRunnable = runnable;
+        }
+
+        void post() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void cancel() {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mRunnable.run();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2012 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viewpagerindicator;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Default {@link IconDecoder} which streams files and Uris straight into
+ * the bitmap decoder, so the encoded image is never copied onto the heap.
+ * Each source is opened twice: once to read its size and once to decode
+ * it at the smallest sample size which still covers the displayed size.
+ */
+class StreamIconDecoder implements IconDecoder {
+    static final StreamIconDecoder INSTANCE = new StreamIconDecoder();
+
+    @Override
+    public Bitmap decode(Context context, IconSource source, int maxWidth, int maxHeight) throws IOException {
+        final BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        decode(context, source, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        final float scale = IconCache.getFitScale(options.outWidth, options.outHeight, maxWidth, maxHeight);
+        final int width = Math.max(1, Math.round(options.outWidth * scale));
+        final int height = Math.max(1, Math.round(options.outHeight * scale));
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = IconCache.getSampleSize(options.outWidth, options.outHeight, width, height);
+        final Bitmap bitmap = decode(context, source, options);
+        if (bitmap == null) {
+            return null;
+        }
+        return IconCache.scaleTo(bitmap, width, height);
+    }
+
+    private static Bitmap decode(Context context, IconSource source, BitmapFactory.Options options) throws IOException {
+        if (source.getFile() != null) {
+            final FileInputStream in = new FileInputStream(source.getFile());
+            try {
+                return BitmapFactory.decodeFileDescriptor(in.getFD(), null, options);
+            } finally {
+                in.close();
+            }
+        }
+        if (source.getUri() != null) {
+            final AssetFileDescriptor fd = context.getContentResolver().openAssetFileDescriptor(source.getUri(), "r");
+            if (fd == null) {
+                return null;
+            }
+            //The stream honours the offset and length of the descriptor and closes it
+            final InputStream in = fd.createInputStream();
+            try {
+                return BitmapFactory.decodeStream(in, null, options);
+            } finally {
+                in.close();
+            }
+        }
+        return null;
+    }
+}
@@ -17,9 +17,12 @@
 package com.viewpagerindicator;
 
 import android.content.Context;
+import android.graphics.drawable.Drawable;
 import android.support.v4.view.PagerAdapter;
 import android.support.v4.view.ViewPager;
 import android.support.v4.view.ViewPager.OnPageChangeListener;
+import android.text.TextPaint;
+import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.view.View;
 import android.view.ViewGroup;
@@ -27,6 +30,8 @@ import android.widget.HorizontalScrollView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
+import java.util.ArrayList;
+
 import static android.view.ViewGroup.LayoutParams.MATCH_PARENT;
 import static android.view.ViewGroup.LayoutParams.WRAP_CONTENT;
 
@@ -50,7 +55,35 @@ public class TabPageIndicator extends HorizontalScrollView implements PageIndica
         void onTabReselected(int position);
     }
 
-    private Runnable mTabSelector;
+    /** Tab the pending selector will scroll to, or -1 if none is pending. */
+    private int mTabSelectorIndex = -1;
+
+    private final Runnable mTabSelector = new Runnable() {
+        public void run() {
+            final int position = mTabSelectorIndex;
+            mTabSelectorIndex = -1;
+            if (position < 0) {
+                return;
+            }
+
+            int tabLeft;
+            int tabWidth;
+            if (mVirtualized) {
+                //The tab may not have a view so position it from the strip
+                tabLeft = mVirtualStrip.getTabLeft(position);
+                tabWidth = mVirtualStrip.getTabWidth(position);
+            } else {
+                final View tabView = mTabLayout.getChildAt(position);
+                if (tabView == null) {
+                    return;
+                }
+                tabLeft = tabView.getLeft();
+                tabWidth = tabView.getWidth();
+            }
+            final int scrollPos = tabLeft - (getWidth() - tabWidth) / 2;
+            smoothScrollTo(scrollPos, 0);
+        }
+    };
 
     private final OnClickListener mTabClickListener = new OnClickListener() {
         public void onClick(View view) {
@@ -71,9 +104,101 @@ public class TabPageIndicator extends HorizontalScrollView implements PageIndica
 
     private int mMaxTabWidth;
     private int mSelectedTabIndex;
+    /** Index of the tab view whose selected state is set, or -1 if none. */
+    private int mSelectedTabViewIndex = -1;
 
     private OnTabReselectedListener mTabReselectedListener;
 
+    private TabViewPool mTabViewPool;
+    /** Whether the tabs were given to the pool on detach and must be recreated. */
+    private boolean mTabsReleased;
+
+    private boolean mVirtualized;
+    private VirtualTabStrip mVirtualStrip;
+    /** Tab which is never attached or bound, used to estimate tabs without a view. */
+    private TabView mMeasureTab;
+
+    private final VirtualTabStrip.Adapter mVirtualAdapter = new VirtualTabStrip.Adapter() {
+        @Override
+        public int getCount() {
+            return (mViewPager != null) ? mViewPager.getAdapter().getCount() : 0;
+        }
+
+        @Override
+        public int estimateTabWidth(int index) {
+            if (mMeasureTab == null) {
+                mMeasureTab = newTabView();
+            }
+            //Add up what a single line TextView measures to, without laying out any text
+            final CharSequence title = getMeasureTitle(index);
+            int width;
+            if (title == null) {
+                width = (int)(mMeasureTab.getTextSize() * TitleLoader.PLACEHOLDER_EMS);
+            } else {
+                width = (int)Math.ceil(mMeasureTab.getPaint().measureText(title, 0, title.length()));
+            }
+            width += mMeasureTab.getPaddingLeft() + mMeasureTab.getPaddingRight();
+            final IconSource iconSource = getTabIconSource(index);
+            final Drawable icon = (iconSource != null) ? mIconBinder.peek(iconSource, 0, 0) : null;
+            if (icon != null) {
+                width += icon.getIntrinsicWidth() + mMeasureTab.getCompoundDrawablePadding();
+            }
+            if (mMaxTabWidth > 0 && width > mMaxTabWidth) {
+                width = mMaxTabWidth;
+            }
+            return width;
+        }
+
+        @Override
+        public View createTab() {
+            return newTabView();
+        }
+
+        @Override
+        public void bindTab(View tab, int index) {
+            TabPageIndicator.this.bindTab((TabView)tab, index, getTabTitle(index, null), getTabIconSource(index));
+            tab.setSelected(index == mSelectedTabIndex);
+        }
+
+        @Override
+        public void releaseTab(View tab) {
+            if (mTabViewPool != null) {
+                mTabViewPool.release((TabView)tab);
+            }
+        }
+    };
+
+    private TitleLoader mTitleLoader;
+    private final TitleLoader.Callback mTitleLoadedCallback = new TitleLoader.Callback() {
+        @Override
+        public void onTitleLoaded(int index, CharSequence title) {
+            final TabView tabView = getTabView(index);
+            final boolean resized = (tabView != null) && bindTab(tabView, index, title, tabView.mIconSource);
+            if (mVirtualized) {
+                //Only the width of this tab can have changed
+                mVirtualStrip.updateTabWidth(index);
+            } else if (resized) {
+                requestLayout();
+            }
+        }
+    };
+
+    private final IconBinder mIconBinder;
+    private final IconLoader.Callback mIconLoadedCallback = new IconLoader.Callback() {
+        @Override
+        public void onIconLoaded(int index, IconSource source, Drawable icon) {
+            final TabView tabView = getTabView(index);
+            if (tabView != null && tabView.mIconPending && source.equals(tabView.mIconSource)) {
+                tabView.mIconPending = false;
+                tabView.setCompoundDrawablesWithIntrinsicBounds(icon, null, null, null);
+            }
+            if (mVirtualized) {
+                //Only the width of this tab can have changed
+                mVirtualStrip.updateTabWidth(index);
+            }
+        }
+    };
+
     public TabPageIndicator(Context context) {
         this(context, null);
     }
@@ -82,6 +207,7 @@ public class TabPageIndicator extends HorizontalScrollView implements PageIndica
         super(context, attrs);
         setHorizontalScrollBarEnabled(false);
 
+        mIconBinder = new IconBinder(context, mIconLoadedCallback);
         mTabLayout = new IcsLinearLayout(context, R.attr.vpiTabPageIndicatorStyle);
         addView(mTabLayout, new ViewGroup.LayoutParams(WRAP_CONTENT, MATCH_PARENT));
     }
@@ -90,13 +216,108 @@ public class TabPageIndicator extends HorizontalScrollView implements PageIndica
         mTabReselectedListener = listener;
     }
 
+    public TabViewPool getTabViewPool() {
+        return mTabViewPool;
+    }
+
+    /**
+     * Share tab views with other indicators. Tabs this indicator no longer
+     * needs are given to the pool and new tabs are taken from it before any
+     * are created. Only indicators in the same window should share a pool.
+     *
+     * @param pool Pool to use or {@code null} to always create new tabs.
+     */
+    public void setTabViewPool(TabViewPool pool) {
+        mTabViewPool = pool;
+    }
+
+    public boolean isVirtualized() {
+        return mVirtualized;
+    }
+
+    /**
+     * Only create views for the tabs inside the visible area, plus a few on
+     * either side, and recycle them as the tabs scroll. Memory use and layout
+     * time then depend on the width of the indicator rather than the number
+     * of pages. Dividers are not drawn between virtualized tabs.
+     */
+    public void setVirtualized(boolean virtualized) {
+        if (virtualized == mVirtualized) {
+            return;
+        }
+        mVirtualized = virtualized;
+        removeAllViews();
+        if (virtualized) {
+            releaseTabs(0, mTabLayout.getChildCount());
+            mTabLayout.removeAllViews();
+            mSelectedTabViewIndex = -1;
+            mVirtualStrip = new VirtualTabStrip(getContext(), mVirtualAdapter);
+            mVirtualStrip.setViewport(getScrollX(), getWidth());
+            addView(mVirtualStrip, new ViewGroup.LayoutParams(WRAP_CONTENT, MATCH_PARENT));
+        } else {
+            releaseVirtualTabs();
+            mVirtualStrip = null;
+            addView(mTabLayout, new ViewGroup.LayoutParams(WRAP_CONTENT, MATCH_PARENT));
+        }
+        if (mViewPager != null) {
+            notifyDataSetChanged();
+        }
+    }
+
+    public boolean getLoadIconsInBackground() {
+        return mIconBinder.getLoadInBackground();
+    }
+
+    /**
+     * Decode tab icons on a background thread instead of while the adapter is
+     * bound, starting with the ones nearest the current page. Until its icon
+     * is ready a tab shows the placeholder, if there is one. Icons from files
+     * and Uris are always loaded in the background.
+     *
+     * @see #setIconPlaceholder(Drawable)
+     */
+    public void setLoadIconsInBackground(boolean inBackground) {
+        if (mIconBinder.setLoadInBackground(inBackground) && mViewPager != null) {
+            notifyDataSetChanged();
+        }
+    }
+
+    public IconDecoder getIconDecoder() {
+        return mIconBinder.getDecoder();
+    }
+
+    /**
+     * Decoder for the icons of an {@link IconSourcePagerAdapter} which come
+     * from files and Uris.
+     *
+     * @param decoder Decoder to use or {@code null} to stream them with
+     * {@link android.graphics.BitmapFactory}.
+     */
+    public void setIconDecoder(IconDecoder decoder) {
+        mIconBinder.setDecoder(decoder);
+    }
+
+    public Drawable getIconPlaceholder() {
+        return mIconBinder.getPlaceholder();
+    }
+
+    /**
+     * Drawable shown for an icon which is still being loaded in the
+     * background. Ideally the same size as the icons so that tabs do not
+     * change width when they arrive.
+     */
+    public void setIconPlaceholder(Drawable placeholder) {
+        mIconBinder.setPlaceholder(placeholder);
+    }
+
     @Override
     public void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         final int widthMode = MeasureSpec.getMode(widthMeasureSpec);
         final boolean lockedExpanded = widthMode == MeasureSpec.EXACTLY;
         setFillViewport(lockedExpanded);
 
-        final int childCount = mTabLayout.getChildCount();
+        final int childCount = getTabCount();
+        final int oldMaxTabWidth = mMaxTabWidth;
         if (childCount > 1 && (widthMode == MeasureSpec.EXACTLY || widthMode == MeasureSpec.AT_MOST)) {
             if (childCount > 2) {
                 mMaxTabWidth = (int)(MeasureSpec.getSize(widthMeasureSpec) * 0.4f);
@@ -106,6 +327,9 @@ public class TabPageIndicator extends HorizontalScrollView implements PageIndica
         } else {
             mMaxTabWidth = -1;
         }
+        if (mVirtualized && mMaxTabWidth != oldMaxTabWidth) {
+            mVirtualStrip.setWidthsDirty();
+        }
 
         final int oldWidth = getMeasuredWidth();
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
@@ -117,25 +341,41 @@ public class TabPageIndicator extends HorizontalScrollView implements PageIndica
         }
     }
 
-    private void animateToTab(final int position) {
-        final View tabView = mTabLayout.getChildAt(position);
-        if (mTabSelector != null) {
-            removeCallbacks(mTabSelector);
+    private void animateToTab(int position) {
+        //Requests before the selector runs only move its target
+        final boolean pending = (mTabSelectorIndex >= 0);
+        mTabSelectorIndex = position;
+        if (!pending) {
+            post(mTabSelector);
+        }
+    }
+
+    @Override
+    protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+        super.onScrollChanged(l, t, oldl, oldt);
+        if (mVirtualized) {
+            mVirtualStrip.setViewport(l, getWidth());
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (mVirtualized) {
+            mVirtualStrip.setViewport(getScrollX(), w);
         }
-        mTabSelector = new Runnable() {
-            public void run() {
-                final int scrollPos = tabView.getLeft() - (getWidth() - tabView.getWidth()) / 2;
-                smoothScrollTo(scrollPos, 0);
-                mTabSelector = null;
-            }
-        };
-        post(mTabSelector);
     }
 
     @Override
     public void onAttachedToWindow() {
         super.onAttachedToWindow();
-        if (mTabSelector != null) {
+        if (mTabsReleased) {
+            mTabsReleased = false;
+            if (mViewPager != null) {
+                notifyDataSetChanged();
+            }
+        }
+        if (mTabSelectorIndex >= 0) {
             // Re-post the selector we saved
             post(mTabSelector);
         }
@@ -144,25 +384,182 @@ public class TabPageIndicator extends HorizontalScrollView implements PageIndica
     @Override
     public void onDetachedFromWindow() {
         super.onDetachedFromWindow();
-        if (mTabSelector != null) {
-            removeCallbacks(mTabSelector);
+        removeCallbacks(mTabSelector);
+        if (mTabViewPool != null) {
+            //Let other indicators use the tabs until this one is attached again
+            if (mVirtualized) {
+                releaseVirtualTabs();
+            } else {
+                releaseTabs(0, mTabLayout.getChildCount());
+                mTabLayout.removeAllViews();
+                mSelectedTabViewIndex = -1;
+                mTabsReleased = true;
+            }
         }
     }
 
-    private void addTab(int index, CharSequence text, int iconResId) {
-        final TabView tabView = new TabView(getContext());
-        tabView.mIndex = index;
-        tabView.setFocusable(true);
+    /**
+     * Give the tabs of the virtual strip, and the tab used to measure them,
+     * to the pool. The strip creates the tabs it needs again on its next
+     * layout.
+     */
+    private void releaseVirtualTabs() {
+        mVirtualStrip.releaseTabs();
+        if (mMeasureTab != null) {
+            if (mTabViewPool != null) {
+                mTabViewPool.release(mMeasureTab);
+            }
+            mMeasureTab = null;
+        }
+    }
+
+    private TabView newTabView() {
+        TabView tabView = null;
+        if (mTabViewPool != null) {
+            tabView = mTabViewPool.acquire(getContext());
+        }
+        if (tabView == null) {
+            tabView = new TabView(getContext());
+            tabView.setFocusable(true);
+        }
+        tabView.mIndicator = this;
         tabView.setOnClickListener(mTabClickListener);
-        tabView.setText(text);
+        return tabView;
+    }
 
-        if (iconResId != 0) {
-            tabView.setCompoundDrawablesWithIntrinsicBounds(iconResId, 0, 0, 0);
+    /**
+     * Give the tabs which are about to be removed from the layout to the
+     * pool, if there is one.
+     */
+    private void releaseTabs(int start, int count) {
+        if (mTabViewPool == null) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            mTabViewPool.release((TabView)mTabLayout.getChildAt(start + i));
         }
+    }
 
+    private void addTab(int index, CharSequence text, IconSource iconSource) {
+        //A pooled tab may still show another page so bind everything
+        final TabView tabView = newTabView();
+        bindTab(tabView, index, text, iconSource);
         mTabLayout.addView(tabView, new LinearLayout.LayoutParams(0, MATCH_PARENT, 1));
     }
 
+    /**
+     * Title of the page at {@code index}, or {@code fallback} while an
+     * asynchronously loaded title is not yet available.
+     */
+    private CharSequence getTabTitle(int index, CharSequence fallback) {
+        CharSequence title;
+        if (mTitleLoader != null) {
+            //Tabs start out empty and receive their title once it has loaded
+            title = mTitleLoader.get(index);
+            if (title == null) {
+                title = fallback;
+            }
+        } else {
+            title = mViewPager.getAdapter().getPageTitle(index);
+        }
+        if (title == null) {
+            title = EMPTY_TITLE;
+        }
+        return title;
+    }
+
+    /**
+     * Title used to estimate the tab at {@code index} without a view, or
+     * {@code null} if it has not loaded yet. Titles which load asynchronously
+     * are only used once they have loaded, as only the tabs which are bound
+     * request theirs.
+     */
+    private CharSequence getMeasureTitle(int index) {
+        if (mTitleLoader != null) {
+            return mTitleLoader.peek(index);
+        }
+        return getTabTitle(index, null);
+    }
+
+    private IconSource getTabIconSource(int index) {
+        return IconSource.forPage(mViewPager.getAdapter(), index);
+    }
+
+    /**
+     * Get the icon for a tab from the shared icon cache. When icons load in
+     * the background this returns the placeholder and marks the tab as
+     * pending until its icon arrives.
+     */
+    private Drawable loadIcon(TabView tabView, int index, IconSource iconSource) {
+        tabView.mIconPending = false;
+        if (iconSource == null) {
+            return null;
+        }
+        final Drawable icon = mIconBinder.get(index, iconSource, 0, 0);
+        if (icon != null) {
+            return icon;
+        }
+        tabView.mIconPending = true;
+        return mIconBinder.newPlaceholder();
+    }
+
+    private int getTabCount() {
+        return mVirtualized ? mVirtualAdapter.getCount() : mTabLayout.getChildCount();
+    }
+
+    /**
+     * Get the view of the tab at {@code index} or {@code null} if it has none.
+     */
+    private TabView getTabView(int index) {
+        if (mVirtualized) {
+            return (TabView)mVirtualStrip.getTab(index);
+        }
+        if (index < mTabLayout.getChildCount()) {
+            return (TabView)mTabLayout.getChildAt(index);
+        }
+        return null;
+    }
+
+    /**
+     * Update an existing tab with the text and icon of the page at
+     * {@code index}, touching only what changed.
+     *
+     * @return Whether the width of the tab may have changed.
+     */
+    private boolean bindTab(TabView tabView, int index, CharSequence text, IconSource iconSource) {
+        boolean resized = false;
+        tabView.mIndex = index;
+
+        final CharSequence oldText = tabView.getText();
+        if (!TextUtils.equals(oldText, text)) {
+            //Tabs have a fixed layout width so the text view will not relayout by itself
+            final TextPaint paint = tabView.getPaint();
+            resized = paint.measureText(oldText, 0, oldText.length()) != paint.measureText(text, 0, text.length());
+            tabView.setText(text);
+        }
+        final boolean titlePending = (mTitleLoader != null) && (mTitleLoader.peek(index) == null);
+        if (titlePending != tabView.mTitlePending) {
+            tabView.mTitlePending = titlePending;
+            resized = true;
+        }
+
+        //A tab still waiting for its icon asks again in case the loader was reset
+        final boolean iconChanged = (iconSource == null) ? (tabView.mIconSource != null) : !iconSource.equals(tabView.mIconSource);
+        if (iconChanged || tabView.mIconPending) {
+            tabView.mIconSource = iconSource;
+            final Drawable icon = loadIcon(tabView, index, iconSource);
+            if (iconChanged || !tabView.mIconPending) {
+                tabView.setCompoundDrawablesWithIntrinsicBounds(icon, null, null, null);
+                resized = true;
+            }
+        }
+        if (resized) {
+            //Its measure spec is unchanged so it would otherwise keep its old measurement
+            tabView.forceLayout();
+        }
+        return resized;
+    }
+
     @Override
     public void onPageScrollStateChanged(int arg0) {
         if (mListener != null) {
@@ -203,29 +600,46 @@ public class TabPageIndicator extends HorizontalScrollView implements PageIndica
     }
 
     public void notifyDataSetChanged() {
-        mTabLayout.removeAllViews();
         PagerAdapter adapter = mViewPager.getAdapter();
-        IconPagerAdapter iconAdapter = null;
-        if (adapter instanceof IconPagerAdapter) {
-            iconAdapter = (IconPagerAdapter)adapter;
+        if (adapter instanceof AsyncTitlePagerAdapter) {
+            if (mTitleLoader == null) {
+                mTitleLoader = new TitleLoader(mTitleLoadedCallback);
+            }
+            mTitleLoader.reset((AsyncTitlePagerAdapter)adapter);
+        } else {
+            mTitleLoader = null;
         }
+        //Icons of the previous adapter are no longer needed
+        mIconBinder.reset();
         final int count = adapter.getCount();
-        for (int i = 0; i < count; i++) {
-            CharSequence title = adapter.getPageTitle(i);
-            if (title == null) {
-                title = EMPTY_TITLE;
+        boolean resized = false;
+        if (mVirtualized) {
+            mVirtualStrip.notifyDataSetChanged();
+        } else {
+            //Reuse the existing tabs and only add or remove them at the end
+            final int oldCount = mTabLayout.getChildCount();
+            resized = (count != oldCount);
+            for (int i = 0; i < count; i++) {
+                if (i < oldCount) {
+                    //Keep the current text rather than flashing an empty tab
+                    final TabView tabView = (TabView)mTabLayout.getChildAt(i);
+                    resized |= bindTab(tabView, i, getTabTitle(i, tabView.getText()), getTabIconSource(i));
+                } else {
+                    addTab(i, getTabTitle(i, null), getTabIconSource(i));
+                }
             }
-            int iconResId = 0;
-            if (iconAdapter != null) {
-                iconResId = iconAdapter.getIconResId(i);
+            if (oldCount > count) {
+                releaseTabs(count, oldCount - count);
+                mTabLayout.removeViews(count, oldCount - count);
             }
-            addTab(i, title, iconResId);
         }
         if (mSelectedTabIndex > count) {
             mSelectedTabIndex = count - 1;
         }
         setCurrentItem(mSelectedTabIndex);
-        requestLayout();
+        if (resized) {
+            requestLayout();
+        }
     }
 
     @Override
@@ -241,15 +655,28 @@ public class TabPageIndicator extends HorizontalScrollView implements PageIndica
         }
         mSelectedTabIndex = item;
         mViewPager.setCurrentItem(item);
+        mIconBinder.setFocus(item);
 
-        final int tabCount = mTabLayout.getChildCount();
-        for (int i = 0; i < tabCount; i++) {
-            final View child = mTabLayout.getChildAt(i);
-            final boolean isSelected = (i == item);
-            child.setSelected(isSelected);
-            if (isSelected) {
-                animateToTab(item);
+        if (mVirtualized) {
+            //Only tabs with a view need their state updated
+            final int boundCount = mVirtualStrip.getChildCount();
+            for (int i = 0; i < boundCount; i++) {
+                mVirtualStrip.getChildAt(i).setSelected(mVirtualStrip.getTabIndex(i) == item);
             }
+            animateToTab(item);
+            return;
+        }
+
+        //Only the previously and newly selected tabs change state
+        final int tabCount = mTabLayout.getChildCount();
+        if (mSelectedTabViewIndex != item && mSelectedTabViewIndex >= 0 && mSelectedTabViewIndex < tabCount) {
+            mTabLayout.getChildAt(mSelectedTabViewIndex).setSelected(false);
+        }
+        mSelectedTabViewIndex = -1;
+        if (item >= 0 && item < tabCount) {
+            mTabLayout.getChildAt(item).setSelected(true);
+            mSelectedTabViewIndex = item;
+            animateToTab(item);
         }
     }
 
@@ -258,8 +685,72 @@ public class TabPageIndicator extends HorizontalScrollView implements PageIndica
         mListener = listener;
     }
 
-    private class TabView extends TextView {
+    /**
+     * A pool of tab views which can be shared by several indicators so that
+     * tabs discarded by one are reused by the others instead of being created
+     * and styled again.
+     */
+    public static class TabViewPool {
+        private final ArrayList<TabView> mTabs = new ArrayList<TabView>();
+        private int mMaxSize;
+
+        /**
+         * @param maxSize Maximum number of unused tabs kept by the pool.
+         */
+        public TabViewPool(int maxSize) {
+            mMaxSize = maxSize;
+        }
+
+        public int getMaxSize() {
+            return mMaxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            mMaxSize = maxSize;
+            while (mTabs.size() > maxSize) {
+                mTabs.remove(mTabs.size() - 1);
+            }
+        }
+
+        /** Discard all unused tabs. */
+        public void clear() {
+            mTabs.clear();
+        }
+
+        /**
+         * Take an unused tab created with {@code context}, or {@code null} if
+         * there is none.
+         */
+        TabView acquire(Context context) {
+            for (int i = mTabs.size() - 1; i >= 0; i--) {
+                if (mTabs.get(i).getContext() == context) {
+                    return mTabs.remove(i);
+                }
+            }
+            return null;
+        }
+
+        void release(TabView tabView) {
+            tabView.mIndicator = null;
+            //Removing the listener leaves the tab clickable, which would swallow touches
+            tabView.setOnClickListener(null);
+            tabView.setClickable(false);
+            tabView.setPressed(false);
+            tabView.setSelected(false);
+            if (mTabs.size() < mMaxSize) {
+                mTabs.add(tabView);
+            }
+        }
+    }
+
+    private static class TabView extends TextView {
+        private TabPageIndicator mIndicator;
         private int mIndex;
+        private IconSource mIconSource;
+        /** Whether the tab shows a placeholder while its icon loads. */
+        private boolean mIconPending;
+        /** Whether the tab keeps a placeholder width while its title loads. */
+        private boolean mTitlePending;
 
         public TabView(Context context) {
             super(context, null, R.attr.vpiTabPageIndicatorStyle);
@@ -269,9 +760,20 @@ public class TabPageIndicator extends HorizontalScrollView implements PageIndica
         public void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
             super.onMeasure(widthMeasureSpec, heightMeasureSpec);
 
+            //Keep room for a title which is still loading so the tabs move less when it arrives
+            if (mTitlePending && MeasureSpec.getMode(widthMeasureSpec) != MeasureSpec.EXACTLY) {
+                final int placeholderWidth = (int)(getTextSize() * TitleLoader.PLACEHOLDER_EMS)
+                        + getCompoundPaddingLeft() + getCompoundPaddingRight();
+                if (getMeasuredWidth() < placeholderWidth) {
+                    super.onMeasure(MeasureSpec.makeMeasureSpec(placeholderWidth, MeasureSpec.EXACTLY),
+                            heightMeasureSpec);
+                }
+            }
+
             // Re-measure if we went beyond our maximum size.
-            if (mMaxTabWidth > 0 && getMeasuredWidth() > mMaxTabWidth) {
-                super.onMeasure(MeasureSpec.makeMeasureSpec(mMaxTabWidth, MeasureSpec.EXACTLY),
+            final int maxTabWidth = (mIndicator != null) ? mIndicator.mMaxTabWidth : -1;
+            if (maxTabWidth > 0 && getMeasuredWidth() > maxTabWidth) {
+                super.onMeasure(MeasureSpec.makeMeasureSpec(maxTabWidth, MeasureSpec.EXACTLY),
                         heightMeasureSpec);
             }
         }
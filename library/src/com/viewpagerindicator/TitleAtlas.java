@@ -0,0 +1,206 @@
+/*
+ * Copyright (C) 2012 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viewpagerindicator;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.Build;
+
+import java.util.Arrays;
+
+/**
+ * A cache of page titles which have been pre-rendered into bitmaps so that
+ * drawing a title is a bitmap copy rather than text rendering. Each bitmap
+ * is an alpha mask of the title with a fake bold rendering directly beneath
+ * it, and is drawn in the color of the paint it is drawn with. The total
+ * size of the bitmaps is bounded in bytes and the least recently drawn
+ * titles are evicted first.
+ */
+class TitleAtlas {
+    private static final class Entry {
+        CharSequence title;
+        Bitmap bitmap;
+        int index;
+        int baseline;
+        int rowHeight;
+        int bytes;
+        Entry newer;
+        Entry older;
+    }
+
+    private final Canvas mCanvas = new Canvas();
+    private final Paint mPaintBitmap = new Paint();
+    /** Copy of the caller's text paint so rendering never changes theirs. */
+    private final Paint mPaintRender = new Paint();
+    private final Rect mSrc = new Rect();
+    private final Rect mDst = new Rect();
+
+    private Entry[] mEntries = new Entry[0];
+    private Entry mNewest;
+    private Entry mOldest;
+    private int mMaxBytes;
+    private int mBytes;
+
+    public TitleAtlas(int maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    public int getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    public void setMaxBytes(int maxBytes) {
+        mMaxBytes = maxBytes;
+        trimToSize(null);
+    }
+
+    /** Discard all rendered titles. */
+    public void clear() {
+        for (Entry entry = mNewest; entry != null; entry = entry.older) {
+            recycle(entry);
+        }
+        Arrays.fill(mEntries, null);
+        mNewest = null;
+        mOldest = null;
+        mBytes = 0;
+    }
+
+    /**
+     * Draw the title of the page at {@code index} with its left edge at
+     * {@code x} and its baseline at {@code y}, in the color and alpha of
+     * {@code paint}, rendering it first if it is not already in the atlas.
+     * Text attributes are taken from {@code paint} when rendering, except
+     * for fake bold which is given by {@code bold}.
+     */
+    public void draw(Canvas canvas, Paint paint, int index, CharSequence title, float x, float y, boolean bold) {
+        final Entry entry = obtain(index, title, paint);
+        final int width = entry.bitmap.getWidth();
+        final int left = Math.round(x);
+        final int top = Math.round(y) - entry.baseline;
+        final int row = bold ? entry.rowHeight : 0;
+        mSrc.set(0, row, width, row + entry.rowHeight);
+        mDst.set(left, top, left + width, top + entry.rowHeight);
+        //An alpha mask is drawn in the color of the paint
+        mPaintBitmap.setColor(paint.getColor());
+        canvas.drawBitmap(entry.bitmap, mSrc, mDst, mPaintBitmap);
+    }
+
+    private Entry obtain(int index, CharSequence title, Paint paint) {
+        Entry entry = (index < mEntries.length) ? mEntries[index] : null;
+        if (entry != null) {
+            if (entry.title == title || entry.title.equals(title)) {
+                unlink(entry);
+                link(entry);
+                return entry;
+            }
+            unlink(entry);
+            mBytes -= entry.bytes;
+            recycle(entry);
+        }
+
+        entry = render(title, paint);
+        entry.index = index;
+        if (index >= mEntries.length) {
+            Entry[] entries = new Entry[Math.max(index + 1, mEntries.length * 2)];
+            System.arraycopy(mEntries, 0, entries, 0, mEntries.length);
+            mEntries = entries;
+        }
+        mEntries[index] = entry;
+        link(entry);
+        mBytes += entry.bytes;
+        trimToSize(entry);
+        return entry;
+    }
+
+    private Entry render(CharSequence title, Paint textPaint) {
+        final Paint paint = mPaintRender;
+        paint.set(textPaint);
+        paint.setFakeBoldText(false);
+        final int length = title.length();
+        final int baseline = (int) Math.ceil(-paint.ascent());
+        final int rowHeight = baseline + (int) Math.ceil(paint.descent());
+        //Leave room for the title to be drawn with fake bold
+        final int width = (int) Math.ceil(paint.measureText(title, 0, length) + paint.getTextSize() / 12f) + 1;
+
+        final Bitmap bitmap = Bitmap.createBitmap(width, Math.max(1, rowHeight * 2), Bitmap.Config.ALPHA_8);
+        mCanvas.setBitmap(bitmap);
+        //Only the coverage of the text is kept, the color is given when drawing
+        paint.setColor(0xFF000000);
+        mCanvas.drawText(title, 0, length, 0, baseline, paint);
+        paint.setFakeBoldText(true);
+        mCanvas.drawText(title, 0, length, 0, rowHeight + baseline, paint);
+
+        final Entry entry = new Entry();
+        entry.title = title;
+        entry.bitmap = bitmap;
+        entry.baseline = baseline;
+        entry.rowHeight = rowHeight;
+        entry.bytes = bitmap.getRowBytes() * bitmap.getHeight();
+        return entry;
+    }
+
+    /** Evict the least recently drawn titles, except {@code keep}, until under the byte limit. */
+    private void trimToSize(Entry keep) {
+        while (mBytes > mMaxBytes && mOldest != null && mOldest != keep) {
+            final Entry oldest = mOldest;
+            unlink(oldest);
+            mEntries[oldest.index] = null;
+            mBytes -= oldest.bytes;
+            recycle(oldest);
+        }
+    }
+
+    /**
+     * Free the pixels of an evicted title. Before Honeycomb they are not on
+     * the Java heap so would otherwise wait for a finalizer. Later versions
+     * may still reference the bitmap from a display list, so leave it to the
+     * garbage collector there.
+     */
+    private static void recycle(Entry entry) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
+            entry.bitmap.recycle();
+        }
+    }
+
+    private void link(Entry entry) {
+        entry.older = mNewest;
+        entry.newer = null;
+        if (mNewest != null) {
+            mNewest.newer = entry;
+        }
+        mNewest = entry;
+        if (mOldest == null) {
+            mOldest = entry;
+        }
+    }
+
+    private void unlink(Entry entry) {
+        if (entry.newer != null) {
+            entry.newer.older = entry.older;
+        } else {
+            mNewest = entry.older;
+        }
+        if (entry.older != null) {
+            entry.older.newer = entry.newer;
+        } else {
+            mOldest = entry.newer;
+        }
+        entry.newer = null;
+        entry.older = null;
+    }
+}
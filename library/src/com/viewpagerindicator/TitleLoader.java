@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2012 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viewpagerindicator;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Loads and caches the titles of an {@link AsyncTitlePagerAdapter} on a
+ * background thread, delivering each one to a {@link Callback} on the main
+ * thread as it arrives.
+ */
+class TitleLoader {
+    /** Title used for a page whose adapter returned no title. */
+    private static final CharSequence EMPTY_TITLE = "";
+
+    /**
+     * Width, in multiples of the text size, kept for a title which has not
+     * loaded yet so that the titles around it move less when it arrives.
+     */
+    static final float PLACEHOLDER_EMS = 4f;
+
+    private static ExecutorService sExecutor;
+
+    /**
+     * Interface for a callback when the title of a page has been loaded.
+     */
+    public interface Callback {
+        /**
+         * Callback on the main thread when a title has been loaded.
+         *
+         * @param index Position of the page.
+         * @param title Loaded title of the page.
+         */
+        void onTitleLoaded(int index, CharSequence title);
+    }
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Callback mCallback;
+
+    private AsyncTitlePagerAdapter mAdapter;
+    private CharSequence[] mTitles = new CharSequence[0];
+    private boolean[] mRequested = new boolean[0];
+    private volatile int mGeneration;
+
+    public TitleLoader(Callback callback) {
+        mCallback = callback;
+    }
+
+    /**
+     * Discard all loaded titles, and any which are still loading, and load
+     * titles from {@code adapter} from now on.
+     */
+    public void reset(AsyncTitlePagerAdapter adapter) {
+        mAdapter = adapter;
+        mGeneration++;
+        final int count = adapter.getCount();
+        if (mTitles.length < count) {
+            mTitles = new CharSequence[count];
+            mRequested = new boolean[count];
+        } else {
+            for (int i = 0; i < mTitles.length; i++) {
+                mTitles[i] = null;
+                mRequested[i] = false;
+            }
+        }
+    }
+
+    /**
+     * Get the title of the page at {@code index} if it has been loaded,
+     * without starting to load it.
+     */
+    public CharSequence peek(int index) {
+        return (index < mTitles.length) ? mTitles[index] : null;
+    }
+
+    /**
+     * Get the title of the page at {@code index} if it has been loaded,
+     * otherwise start loading it and return {@code null}.
+     */
+    public CharSequence get(int index) {
+        if (index >= mTitles.length) {
+            final int length = Math.max(index + 1, mTitles.length * 2);
+            final CharSequence[] titles = new CharSequence[length];
+            final boolean[] requested = new boolean[length];
+            System.arraycopy(mTitles, 0, titles, 0, mTitles.length);
+            System.arraycopy(mRequested, 0, requested, 0, mRequested.length);
+            mTitles = titles;
+            mRequested = requested;
+        }
+        final CharSequence title = mTitles[index];
+        if (title == null && !mRequested[index]) {
+            mRequested[index] = true;
+            getExecutor().execute(new LoadTask(mAdapter, index, mGeneration));
+        }
+        return title;
+    }
+
+    private static synchronized Executor getExecutor() {
+        if (sExecutor == null) {
+            sExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, "ViewPagerIndicator titles");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return sExecutor;
+    }
+
+    private class LoadTask implements Runnable {
+        private final AsyncTitlePagerAdapter mTaskAdapter;
+        private final int mIndex;
+        private final int mTaskGeneration;
+        private CharSequence mTitle;
+
+        LoadTask(AsyncTitlePagerAdapter adapter, int index, int generation) {
+            mTaskAdapter = adapter;
+            mIndex = index;
+            mTaskGeneration = generation;
+        }
+
+        @Override
+        public void run() {
+            if (mTitle == null) {
+                //Background thread: load the title then hop back to the main thread
+                if (mTaskGeneration != mGeneration) {
+                    return;
+                }
+                final CharSequence title = mTaskAdapter.loadPageTitle(mIndex);
+                mTitle = (title != null) ? title : EMPTY_TITLE;
+                mHandler.post(this);
+            } else if (mTaskGeneration == mGeneration && mIndex < mTitles.length) {
+                mTitles[mIndex] = mTitle;
+                mCallback.onTitleLoaded(mIndex, mTitle);
+            }
+        }
+    }
+}
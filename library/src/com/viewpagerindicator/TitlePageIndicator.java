@@ -29,6 +29,7 @@ import android.graphics.drawable.Drawable;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.PagerAdapter;
 import android.support.v4.view.ViewConfigurationCompat;
 import android.support.v4.view.ViewPager;
 import android.util.AttributeSet;
@@ -36,7 +37,7 @@ import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewConfiguration;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * A TitlePageIndicator is a PageIndicator which displays the title of left view
@@ -59,6 +60,13 @@ public class TitlePageIndicator extends View implements PageIndicator {
      */
     private static final float BOLD_FADE_PERCENTAGE = 0.05f;
 
+    /**
+     * Number of pages on either side of the current (and next) page which are
+     * laid out on each frame. Titles further away are always pushed off screen
+     * by their neighbors so they are never measured, clipped, or drawn.
+     */
+    private static final int TITLE_WINDOW_MARGIN = 2;
+
     /**
      * Title text used when no title is provided by the adapter.
      */
@@ -123,7 +131,11 @@ public class TitlePageIndicator extends View implements PageIndicator {
     private boolean mBoldText;
     private int mColorText;
     private int mColorSelected;
-    private Path mPath = new Path();
+    private boolean mSelectedColorBlended;
+    private TitleAtlas mTitleAtlas;
+    /** Triangle indicator geometry, rebuilt only when {@link #mPathDirty} is set. */
+    private final Path mPath = new Path();
+    private boolean mPathDirty = true;
     private final Rect mBounds = new Rect();
     private final Paint mPaintFooterLine = new Paint();
     private IndicatorStyle mFooterIndicatorStyle;
@@ -137,6 +149,17 @@ public class TitlePageIndicator extends View implements PageIndicator {
     /** Left and right side padding for not active view titles. */
     private float mClipPadding;
     private float mFooterLineHeight;
+    /**
+     * Title of each page, fetched from the adapter the first time it is drawn
+     * and kept until the titles change, or {@code null} if not yet fetched.
+     */
+    private CharSequence[] mTitles = new CharSequence[0];
+    /** Measured width of each fetched title in mTitles. */
+    private int[] mTitleWidths = new int[0];
+    private int mTitleHeight = -1;
+    /** Horizontal title bounds of each page, reused across frames. */
+    private int[] mBoundsLeft = new int[0];
+    private int[] mBoundsRight = new int[0];
 
     private static final int INVALID_POINTER = -1;
 
@@ -145,8 +168,40 @@ public class TitlePageIndicator extends View implements PageIndicator {
     private int mActivePointerId = INVALID_POINTER;
     private boolean mIsDragging;
 
+    /** Applies at most one scroll event per frame. */
+    private final ScrollCoalescer mScrollCoalescer = new ScrollCoalescer(this, new ScrollCoalescer.Callback() {
+        @Override
+        public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+            mCurrentPage = position;
+            mPageOffset = positionOffset;
+            invalidateScroll();
+        }
+    });
+
     private OnCenterItemClickListener mCenterItemClickListener;
 
+    private TitleLoader mTitleLoader;
+    private final TitleLoader.Callback mTitleLoadedCallback = new TitleLoader.Callback() {
+        @Override
+        public void onTitleLoaded(int index, CharSequence title) {
+            //Fetch and measure the loaded title the next time it is drawn
+            if (index < mTitles.length) {
+                mTitles[index] = null;
+            }
+            //Titles outside of the window around the current page are not drawn
+            if (index < mCurrentPage - TITLE_WINDOW_MARGIN || index > mCurrentPage + 1 + TITLE_WINDOW_MARGIN) {
+                return;
+            }
+            final boolean underlined = (mFooterIndicatorStyle == IndicatorStyle.Underline)
+                    && (index == mCurrentPage || index == mCurrentPage + 1);
+            if (underlined) {
+                invalidate();
+            } else {
+                invalidateTitleRow();
+            }
+        }
+    };
+
 
     public TitlePageIndicator(Context context) {
         this(context, null);
@@ -233,6 +288,7 @@ public class TitlePageIndicator extends View implements PageIndicator {
     public void setFooterLineHeight(float footerLineHeight) {
         mFooterLineHeight = footerLineHeight;
         mPaintFooterLine.setStrokeWidth(mFooterLineHeight);
+        mPathDirty = true;
         invalidate();
     }
 
@@ -242,6 +298,7 @@ public class TitlePageIndicator extends View implements PageIndicator {
 
     public void setFooterIndicatorHeight(float footerTriangleHeight) {
         mFooterIndicatorHeight = footerTriangleHeight;
+        mPathDirty = true;
         invalidate();
     }
 
@@ -269,6 +326,7 @@ public class TitlePageIndicator extends View implements PageIndicator {
 
     public void setLinePosition(LinePosition linePosition) {
         mLinePosition = linePosition;
+        mPathDirty = true;
         invalidate();
     }
 
@@ -287,6 +345,7 @@ public class TitlePageIndicator extends View implements PageIndicator {
 
     public void setSelectedBold(boolean selectedBold) {
         mBoldText = selectedBold;
+        clearTitles();
         invalidate();
     }
 
@@ -306,6 +365,8 @@ public class TitlePageIndicator extends View implements PageIndicator {
 
     public void setTextSize(float textSize) {
         mPaintText.setTextSize(textSize);
+        clearTitles();
+        clearTitleAtlas();
         invalidate();
     }
 
@@ -338,6 +399,8 @@ public class TitlePageIndicator extends View implements PageIndicator {
 
     public void setTypeface(Typeface typeface) {
         mPaintText.setTypeface(typeface);
+        clearTitles();
+        clearTitleAtlas();
         invalidate();
     }
 
@@ -345,6 +408,50 @@ public class TitlePageIndicator extends View implements PageIndicator {
         return mPaintText.getTypeface();
     }
 
+    public boolean isSelectedColorBlended() {
+        return mSelectedColorBlended;
+    }
+
+    /**
+     * When enabled the title of the selected page is drawn once using a color
+     * blended between the text and selected colors rather than drawing it
+     * twice, once in each color, while it fades in and out. The blended color
+     * is the composite of the two passes so only the antialiased edges of the
+     * glyphs differ slightly during the fade, and half as much text is drawn.
+     *
+     * @param selectedColorBlended Whether to blend the selected title color.
+     */
+    public void setSelectedColorBlended(boolean selectedColorBlended) {
+        mSelectedColorBlended = selectedColorBlended;
+        invalidate();
+    }
+
+    public int getTitleAtlasSize() {
+        return (mTitleAtlas != null) ? mTitleAtlas.getMaxBytes() : 0;
+    }
+
+    /**
+     * Render each title once into an alpha mask, regular and bold, and draw
+     * those masks in the title colors instead of the text on every frame. The
+     * masks are discarded when the titles, the text size or the typeface
+     * change and the least recently drawn are evicted once they exceed
+     * {@code maxBytes}.
+     *
+     * @param maxBytes Maximum size of the rendered titles in bytes, or 0 to
+     *                 always draw titles as text.
+     */
+    public void setTitleAtlasSize(int maxBytes) {
+        if (maxBytes <= 0) {
+            clearTitleAtlas();
+            mTitleAtlas = null;
+        } else if (mTitleAtlas == null) {
+            mTitleAtlas = new TitleAtlas(maxBytes);
+        } else {
+            mTitleAtlas.setMaxBytes(maxBytes);
+        }
+        invalidate();
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -367,17 +474,20 @@ public class TitlePageIndicator extends View implements PageIndicator {
             mCurrentPage = mViewPager.getCurrentItem();
         }
 
-        //Calculate views bounds
-        ArrayList<Rect> bounds = calculateAllBounds(mPaintText);
-        final int boundsSize = bounds.size();
-
         //Make sure we're on a page that still exists
-        if (mCurrentPage >= boundsSize) {
-            setCurrentItem(boundsSize - 1);
+        if (mCurrentPage >= count) {
+            setCurrentItem(count - 1);
             return;
         }
 
+        //Calculate bounds of the views which can possibly be visible
         final int countMinusOne = count - 1;
+        final int first = Math.max(0, mCurrentPage - TITLE_WINDOW_MARGIN);
+        final int last = Math.min(countMinusOne, mCurrentPage + 1 + TITLE_WINDOW_MARGIN);
+        calculateBounds(mPaintText, first, last);
+        final int[] boundsLeft = mBoundsLeft;
+        final int[] boundsRight = mBoundsRight;
+
         final float halfWidth = getWidth() / 2f;
         final int left = getLeft();
         final float leftClip = left + mClipPadding;
@@ -399,51 +509,44 @@ public class TitlePageIndicator extends View implements PageIndicator {
         final float selectedPercent = (SELECTION_FADE_PERCENTAGE - offsetPercent) / SELECTION_FADE_PERCENTAGE;
 
         //Verify if the current view must be clipped to the screen
-        Rect curPageBound = bounds.get(mCurrentPage);
-        float curPageWidth = curPageBound.right - curPageBound.left;
-        if (curPageBound.left < leftClip) {
+        float curPageWidth = boundsRight[mCurrentPage] - boundsLeft[mCurrentPage];
+        if (boundsLeft[mCurrentPage] < leftClip) {
             //Try to clip to the screen (left side)
-            clipViewOnTheLeft(curPageBound, curPageWidth, left);
+            clipViewOnTheLeft(mCurrentPage, curPageWidth, left);
         }
-        if (curPageBound.right > rightClip) {
+        if (boundsRight[mCurrentPage] > rightClip) {
             //Try to clip to the screen (right side)
-            clipViewOnTheRight(curPageBound, curPageWidth, right);
+            clipViewOnTheRight(mCurrentPage, curPageWidth, right);
         }
 
         //Left views starting from the current position
-        if (mCurrentPage > 0) {
-            for (int i = mCurrentPage - 1; i >= 0; i--) {
-                Rect bound = bounds.get(i);
+        if (mCurrentPage > first) {
+            for (int i = mCurrentPage - 1; i >= first; i--) {
                 //Is left side is outside the screen
-                if (bound.left < leftClip) {
-                    int w = bound.right - bound.left;
+                if (boundsLeft[i] < leftClip) {
+                    int w = boundsRight[i] - boundsLeft[i];
                     //Try to clip to the screen (left side)
-                    clipViewOnTheLeft(bound, w, left);
+                    clipViewOnTheLeft(i, w, left);
                     //Except if there's an intersection with the right view
-                    Rect rightBound = bounds.get(i + 1);
-                    //Intersection
-                    if (bound.right + mTitlePadding > rightBound.left) {
-                        bound.left = (int) (rightBound.left - w - mTitlePadding);
-                        bound.right = bound.left + w;
+                    if (boundsRight[i] + mTitlePadding > boundsLeft[i + 1]) {
+                        boundsLeft[i] = (int) (boundsLeft[i + 1] - w - mTitlePadding);
+                        boundsRight[i] = boundsLeft[i] + w;
                     }
                 }
             }
         }
         //Right views starting from the current position
-        if (mCurrentPage < countMinusOne) {
-            for (int i = mCurrentPage + 1 ; i < count; i++) {
-                Rect bound = bounds.get(i);
+        if (mCurrentPage < last) {
+            for (int i = mCurrentPage + 1 ; i <= last; i++) {
                 //If right side is outside the screen
-                if (bound.right > rightClip) {
-                    int w = bound.right - bound.left;
+                if (boundsRight[i] > rightClip) {
+                    int w = boundsRight[i] - boundsLeft[i];
                     //Try to clip to the screen (right side)
-                    clipViewOnTheRight(bound, w, right);
+                    clipViewOnTheRight(i, w, right);
                     //Except if there's an intersection with the left view
-                    Rect leftBound = bounds.get(i - 1);
-                    //Intersection
-                    if (bound.left - mTitlePadding < leftBound.right) {
-                        bound.left = (int) (leftBound.right + mTitlePadding);
-                        bound.right = bound.left + w;
+                    if (boundsLeft[i] - mTitlePadding < boundsRight[i - 1]) {
+                        boundsLeft[i] = (int) (boundsRight[i - 1] + mTitlePadding);
+                        boundsRight[i] = boundsLeft[i] + w;
                     }
                 }
             }
@@ -451,41 +554,49 @@ public class TitlePageIndicator extends View implements PageIndicator {
 
         //Now draw views
         int colorTextAlpha = mColorText >>> 24;
-        for (int i = 0; i < count; i++) {
-            //Get the title
-            Rect bound = bounds.get(i);
+        final int colorBlended = (mSelectedColorBlended && currentSelected)
+                ? blendColors(mColorText, mColorSelected, selectedPercent) : 0;
+        final float textBaseline = mTitleHeight + mTopPadding;
+        for (int i = first; i <= last; i++) {
             //Only if one side is visible
-            if ((bound.left > left && bound.left < right) || (bound.right > left && bound.right < right)) {
+            if ((boundsLeft[i] > left && boundsLeft[i] < right) || (boundsRight[i] > left && boundsRight[i] < right)) {
                 final boolean currentPage = (i == page);
-                final CharSequence pageTitle = getTitle(i);
+                //Fetched by calculateBounds() for every page in the window
+                final CharSequence pageTitle = mTitles[i];
+
+                //Except if there's an intersection with the right view
+                if (i < last)  {
+                    //Intersection
+                    if (boundsRight[i] + mTitlePadding > boundsLeft[i + 1]) {
+                        int w = boundsRight[i] - boundsLeft[i];
+                        boundsLeft[i] = (int) (boundsLeft[i + 1] - w - mTitlePadding);
+                        boundsRight[i] = boundsLeft[i] + w;
+                    }
+                }
 
                 //Only set bold if we are within bounds
-                mPaintText.setFakeBoldText(currentPage && currentBold && mBoldText);
+                final boolean bold = currentPage && currentBold && mBoldText;
+                mPaintText.setFakeBoldText(bold);
 
                 //Draw text as unselected
                 mPaintText.setColor(mColorText);
                 if(currentPage && currentSelected) {
-                    //Fade out/in unselected text as the selected text fades in/out
-                    mPaintText.setAlpha(colorTextAlpha - (int)(colorTextAlpha * selectedPercent));
-                }
-
-                //Except if there's an intersection with the right view
-                if (i < boundsSize - 1)  {
-                    Rect rightBound = bounds.get(i + 1);
-                    //Intersection
-                    if (bound.right + mTitlePadding > rightBound.left) {
-                        int w = bound.right - bound.left;
-                        bound.left = (int) (rightBound.left - w - mTitlePadding);
-                        bound.right = bound.left + w;
+                    if (mSelectedColorBlended) {
+                        //Draw a single pass with the colors already faded together
+                        mPaintText.setColor(colorBlended);
+                    } else {
+                        //Fade out/in unselected text as the selected text fades in/out
+                        mPaintText.setAlpha(colorTextAlpha - (int)(colorTextAlpha * selectedPercent));
                     }
                 }
-                canvas.drawText(pageTitle, 0, pageTitle.length(), bound.left, bound.bottom + mTopPadding, mPaintText);
+
+                drawTitle(canvas, i, pageTitle, boundsLeft[i], textBaseline, bold);
 
                 //If we are within the selected bounds draw the selected text
-                if (currentPage && currentSelected) {
+                if (currentPage && currentSelected && !mSelectedColorBlended) {
                     mPaintText.setColor(mColorSelected);
                     mPaintText.setAlpha((int)((mColorSelected >>> 24) * selectedPercent));
-                    canvas.drawText(pageTitle, 0, pageTitle.length(), bound.left, bound.bottom + mTopPadding, mPaintText);
+                    drawTitle(canvas, i, pageTitle, boundsLeft[i], textBaseline, bold);
                 }
             }
         }
@@ -500,42 +611,38 @@ public class TitlePageIndicator extends View implements PageIndicator {
         }
 
         //Draw the footer line
-        mPath.reset();
-        mPath.moveTo(0, height - footerLineHeight / 2f);
-        mPath.lineTo(width, height - footerLineHeight / 2f);
-        mPath.close();
-        canvas.drawPath(mPath, mPaintFooterLine);
+        final float footerLineY = height - footerLineHeight / 2f;
+        canvas.drawLine(0, footerLineY, width, footerLineY, mPaintFooterLine);
 
         float heightMinusLine = height - footerLineHeight;
         switch (mFooterIndicatorStyle) {
             case Triangle:
-                mPath.reset();
-                mPath.moveTo(halfWidth, heightMinusLine - footerIndicatorLineHeight);
-                mPath.lineTo(halfWidth + footerIndicatorLineHeight, heightMinusLine);
-                mPath.lineTo(halfWidth - footerIndicatorLineHeight, heightMinusLine);
-                mPath.close();
+                //The triangle never moves so only rebuild it when its geometry changes
+                if (mPathDirty) {
+                    mPath.reset();
+                    mPath.moveTo(halfWidth, heightMinusLine - footerIndicatorLineHeight);
+                    mPath.lineTo(halfWidth + footerIndicatorLineHeight, heightMinusLine);
+                    mPath.lineTo(halfWidth - footerIndicatorLineHeight, heightMinusLine);
+                    mPath.close();
+                    mPathDirty = false;
+                }
                 canvas.drawPath(mPath, mPaintFooterIndicator);
                 break;
 
             case Underline:
-                if (!currentSelected || page >= boundsSize) {
+                if (!currentSelected || page >= count) {
                     break;
                 }
 
-                Rect underlineBounds = bounds.get(page);
-                final float rightPlusPadding = underlineBounds.right + mFooterIndicatorUnderlinePadding;
-                final float leftMinusPadding = underlineBounds.left - mFooterIndicatorUnderlinePadding;
+                final float rightPlusPadding = boundsRight[page] + mFooterIndicatorUnderlinePadding;
+                final float leftMinusPadding = boundsLeft[page] - mFooterIndicatorUnderlinePadding;
                 final float heightMinusLineMinusIndicator = heightMinusLine - footerIndicatorLineHeight;
 
-                mPath.reset();
-                mPath.moveTo(leftMinusPadding, heightMinusLine);
-                mPath.lineTo(rightPlusPadding, heightMinusLine);
-                mPath.lineTo(rightPlusPadding, heightMinusLineMinusIndicator);
-                mPath.lineTo(leftMinusPadding, heightMinusLineMinusIndicator);
-                mPath.close();
+                final float underlineTop = Math.min(heightMinusLine, heightMinusLineMinusIndicator);
+                final float underlineBottom = Math.max(heightMinusLine, heightMinusLineMinusIndicator);
 
                 mPaintFooterIndicator.setAlpha((int)(0xFF * selectedPercent));
-                canvas.drawPath(mPath, mPaintFooterIndicator);
+                canvas.drawRect(leftMinusPadding, underlineTop, rightPlusPadding, underlineBottom, mPaintFooterIndicator);
                 mPaintFooterIndicator.setAlpha(0xFF);
                 break;
         }
@@ -639,69 +746,133 @@ public class TitlePageIndicator extends View implements PageIndicator {
     /**
      * Set bounds for the right textView including clip padding.
      *
-     * @param curViewBound
-     *            current bounds.
+     * @param index
+     *            index of the view.
      * @param curViewWidth
      *            width of the view.
      */
-    private void clipViewOnTheRight(Rect curViewBound, float curViewWidth, int right) {
-        curViewBound.right = (int) (right - mClipPadding);
-        curViewBound.left = (int) (curViewBound.right - curViewWidth);
+    private void clipViewOnTheRight(int index, float curViewWidth, int right) {
+        mBoundsRight[index] = (int) (right - mClipPadding);
+        mBoundsLeft[index] = (int) (mBoundsRight[index] - curViewWidth);
     }
 
     /**
      * Set bounds for the left textView including clip padding.
      *
-     * @param curViewBound
-     *            current bounds.
+     * @param index
+     *            index of the view.
      * @param curViewWidth
      *            width of the view.
      */
-    private void clipViewOnTheLeft(Rect curViewBound, float curViewWidth, int left) {
-        curViewBound.left = (int) (left + mClipPadding);
-        curViewBound.right = (int) (mClipPadding + curViewWidth);
+    private void clipViewOnTheLeft(int index, float curViewWidth, int left) {
+        mBoundsLeft[index] = (int) (left + mClipPadding);
+        mBoundsRight[index] = (int) (mClipPadding + curViewWidth);
     }
 
     /**
-     * Calculate views bounds and scroll them according to the current index
+     * Calculate bounds of the views from {@code first} to {@code last}
+     * (inclusive) into {@link #mBoundsLeft} and {@link #mBoundsRight} and
+     * scroll them according to the current index. The arrays only ever grow
+     * so steady-state frames do not allocate.
      *
      * @param paint
-     * @return
+     * @param first
+     * @param last
      */
-    private ArrayList<Rect> calculateAllBounds(Paint paint) {
-        ArrayList<Rect> list = new ArrayList<Rect>();
-        //For each views (If no values then add a fake one)
+    private void calculateBounds(Paint paint, int first, int last) {
         final int count = mViewPager.getAdapter().getCount();
         final int width = getWidth();
         final int halfWidth = width / 2;
-        for (int i = 0; i < count; i++) {
-            Rect bounds = calcBounds(i, paint);
-            int w = bounds.right - bounds.left;
-            int h = bounds.bottom - bounds.top;
-            bounds.left = (int)(halfWidth - (w / 2f) + ((i - mCurrentPage - mPageOffset) * width));
-            bounds.right = bounds.left + w;
-            bounds.top = 0;
-            bounds.bottom = h;
-            list.add(bounds);
+        if (mBoundsLeft.length < count) {
+            mBoundsLeft = new int[count];
+            mBoundsRight = new int[count];
+            mTitleWidths = new int[count];
+            mTitles = new CharSequence[count];
+        }
+        if (mTitleHeight < 0) {
+            mTitleHeight = (int) (paint.descent() - paint.ascent());
+        }
+        for (int i = first; i <= last; i++) {
+            int w = calcWidth(i, paint);
+            mBoundsLeft[i] = (int)(halfWidth - (w / 2f) + ((i - mCurrentPage - mPageOffset) * width));
+            mBoundsRight[i] = mBoundsLeft[i] + w;
         }
-
-        return list;
     }
 
     /**
-     * Calculate the bounds for a view's title
+     * Calculate the width of a view's title, fetching and measuring the
+     * title only the first time the page is drawn. A title which is still
+     * loading keeps the width of a placeholder.
      *
      * @param index
      * @param paint
      * @return
      */
-    private Rect calcBounds(int index, Paint paint) {
-        //Calculate the text bounds
-        Rect bounds = new Rect();
-        CharSequence title = getTitle(index);
-        bounds.right = (int) paint.measureText(title, 0, title.length());
-        bounds.bottom = (int) (paint.descent() - paint.ascent());
-        return bounds;
+    private int calcWidth(int index, Paint paint) {
+        if (mTitles[index] == null) {
+            final CharSequence title = getTitle(index);
+            mTitles[index] = title;
+            if (mTitleLoader != null && mTitleLoader.peek(index) == null) {
+                mTitleWidths[index] = (int) (paint.getTextSize() * TitleLoader.PLACEHOLDER_EMS);
+            } else {
+                mTitleWidths[index] = (int) paint.measureText(title, 0, title.length());
+            }
+        }
+        return mTitleWidths[index];
+    }
+
+    /**
+     * Invalidate the area which changes when the pages scroll. The footer line
+     * and triangle never move so only the titles need redrawing unless they
+     * are being underlined.
+     */
+    private void invalidateScroll() {
+        if (mFooterIndicatorStyle == IndicatorStyle.Underline) {
+            invalidate();
+        } else {
+            invalidateTitleRow();
+        }
+    }
+
+    /**
+     * Invalidate only the row of titles.
+     */
+    private void invalidateTitleRow() {
+        if (mTitleHeight < 0) {
+            //Not yet drawn so the row is not known
+            invalidate();
+            return;
+        }
+        //Include an extra pixel for fake bold text
+        final float titleBottom = mTitleHeight + mTopPadding + mPaintText.descent() + 1;
+        invalidate(0, 0, getWidth(), (int) Math.ceil(titleBottom));
+    }
+
+    /**
+     * Draw a title in the current color of the text paint, copying it from
+     * the title atlas if there is one.
+     */
+    private void drawTitle(Canvas canvas, int index, CharSequence title, float x, float y, boolean bold) {
+        if (mTitleAtlas != null) {
+            mTitleAtlas.draw(canvas, mPaintText, index, title, x, y, bold);
+        } else {
+            canvas.drawText(title, 0, title.length(), x, y, mPaintText);
+        }
+    }
+
+    private void clearTitleAtlas() {
+        if (mTitleAtlas != null) {
+            mTitleAtlas.clear();
+        }
+    }
+
+    /**
+     * Drop all cached titles and their measurements. Must be called whenever
+     * the text paint or the adapter's titles change.
+     */
+    private void clearTitles() {
+        Arrays.fill(mTitles, null);
+        mTitleHeight = -1;
     }
 
     @Override
@@ -717,6 +888,8 @@ public class TitlePageIndicator extends View implements PageIndicator {
         }
         mViewPager = view;
         mViewPager.setOnPageChangeListener(this);
+        resetTitleLoader();
+        clearTitles();
         invalidate();
     }
 
@@ -728,9 +901,29 @@ public class TitlePageIndicator extends View implements PageIndicator {
 
     @Override
     public void notifyDataSetChanged() {
+        if (mViewPager != null) {
+            resetTitleLoader();
+        }
+        clearTitles();
+        clearTitleAtlas();
         invalidate();
     }
 
+    /**
+     * Start loading titles in the background if the adapter asks for it.
+     */
+    private void resetTitleLoader() {
+        final PagerAdapter adapter = mViewPager.getAdapter();
+        if (adapter instanceof AsyncTitlePagerAdapter) {
+            if (mTitleLoader == null) {
+                mTitleLoader = new TitleLoader(mTitleLoadedCallback);
+            }
+            mTitleLoader.reset((AsyncTitlePagerAdapter)adapter);
+        } else {
+            mTitleLoader = null;
+        }
+    }
+
     /**
      * Set a callback listener for the center item click.
      *
@@ -745,6 +938,7 @@ public class TitlePageIndicator extends View implements PageIndicator {
         if (mViewPager == null) {
             throw new IllegalStateException("ViewPager has not been bound.");
         }
+        mScrollCoalescer.flush();
         mViewPager.setCurrentItem(item);
         mCurrentPage = item;
         invalidate();
@@ -752,6 +946,7 @@ public class TitlePageIndicator extends View implements PageIndicator {
 
     @Override
     public void onPageScrollStateChanged(int state) {
+        mScrollCoalescer.setScrollState(state);
         mScrollState = state;
 
         if (mListener != null) {
@@ -761,9 +956,7 @@ public class TitlePageIndicator extends View implements PageIndicator {
 
     @Override
     public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
-        mCurrentPage = position;
-        mPageOffset = positionOffset;
-        invalidate();
+        mScrollCoalescer.post(position, positionOffset, positionOffsetPixels);
 
         if (mListener != null) {
             mListener.onPageScrolled(position, positionOffset, positionOffsetPixels);
@@ -772,9 +965,10 @@ public class TitlePageIndicator extends View implements PageIndicator {
 
     @Override
     public void onPageSelected(int position) {
+        mScrollCoalescer.flush();
         if (mScrollState == ViewPager.SCROLL_STATE_IDLE) {
             mCurrentPage = position;
-            invalidate();
+            invalidateScroll();
         }
 
         if (mListener != null) {
@@ -787,6 +981,26 @@ public class TitlePageIndicator extends View implements PageIndicator {
         mListener = listener;
     }
 
+    /**
+     * Number of page scroll events which were skipped in the most recent
+     * frame because a newer one arrived before it was drawn.
+     */
+    public int getDroppedScrollEventCount() {
+        return mScrollCoalescer.getDroppedCount();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mScrollCoalescer.detach();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mPathDirty = true;
+    }
+
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         //Measure our width in whatever mode specified
@@ -860,8 +1074,38 @@ public class TitlePageIndicator extends View implements PageIndicator {
         };
     }
 
+    /**
+     * Color of {@code to} drawn at {@code ratio} of its alpha over {@code from}
+     * drawn at the rest of its alpha, which is what the two passes of a fading
+     * title composite to.
+     */
+    private static int blendColors(int from, int to, float ratio) {
+        //Alphas of the two passes, truncated as onDraw() truncates them
+        final int fromAlpha = from >>> 24;
+        final float under = (fromAlpha - (int) (fromAlpha * ratio)) / 255f;
+        final float over = (int) ((to >>> 24) * ratio) / 255f;
+        final float alpha = over + under * (1f - over);
+        if (alpha <= 0f) {
+            return 0;
+        }
+        //Source-over of the premultiplied colors, divided back out by the result's alpha
+        final float fromWeight = under * (1f - over) / alpha;
+        final float toWeight = over / alpha;
+        final int a = (int) (alpha * 255f + 0.5f);
+        final int r = (int) (((from >> 16) & 0xFF) * fromWeight + ((to >> 16) & 0xFF) * toWeight + 0.5f);
+        final int g = (int) (((from >> 8) & 0xFF) * fromWeight + ((to >> 8) & 0xFF) * toWeight + 0.5f);
+        final int b = (int) ((from & 0xFF) * fromWeight + (to & 0xFF) * toWeight + 0.5f);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
     private CharSequence getTitle(int i) {
-        CharSequence title = mViewPager.getAdapter().getPageTitle(i);
+        CharSequence title;
+        if (mTitleLoader != null) {
+            //Pages without a loaded title yet are drawn empty at a placeholder width
+            title = mTitleLoader.get(i);
+        } else {
+            title = mViewPager.getAdapter().getPageTitle(i);
+        }
         if (title == null) {
             title = EMPTY_TITLE;
         }
@@ -21,6 +21,7 @@ import android.content.res.TypedArray;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.support.v4.view.MotionEventCompat;
@@ -30,6 +31,7 @@ import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewConfiguration;
+import android.view.animation.AnimationUtils;
 
 /**
  * Draws a line for each page. The current page line is colored differently
@@ -37,14 +39,18 @@ import android.view.ViewConfiguration;
  */
 public class UnderlinePageIndicator extends View implements PageIndicator {
     private static final int INVALID_POINTER = -1;
-    private static final int FADE_FRAME_MS = 30;
+    /** Interval between fade frames when they cannot be synced to vsync. */
+    private static final int FADE_FRAME_MS = 16;
 
     private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
 
     private boolean mFades;
     private int mFadeDelay;
     private int mFadeLength;
-    private int mFadeBy;
+    private long mFadeStartTime;
+    private int mFadeStartAlpha;
+    private int mFadeAlpha = 0xFF;
+    private boolean mFadesWithLayer;
 
     private ViewPager mViewPager;
     private ViewPager.OnPageChangeListener mListener;
@@ -57,15 +63,57 @@ public class UnderlinePageIndicator extends View implements PageIndicator {
     private int mActivePointerId = INVALID_POINTER;
     private boolean mIsDragging;
 
+    /** Applies at most one scroll event per frame. */
+    private final ScrollCoalescer mScrollCoalescer = new ScrollCoalescer(this, new ScrollCoalescer.Callback() {
+        @Override
+        public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+            //Only the area the underline moves out of and into needs redrawing
+            invalidateUnderline();
+            mCurrentPage = position;
+            mPositionOffset = positionOffset;
+            if (mFades) {
+                if (positionOffsetPixels > 0) {
+                    cancelFade();
+                    setFadeAlpha(0xFF);
+                } else if (mScrollState != ViewPager.SCROLL_STATE_DRAGGING) {
+                    removeCallbacks(mFadeRunnable);
+                    postDelayed(mFadeRunnable, mFadeDelay);
+                }
+            }
+            invalidateUnderline();
+        }
+    });
+
+    /** Starts fading out from the current alpha. */
     private final Runnable mFadeRunnable = new Runnable() {
       @Override public void run() {
         if (!mFades) return;
 
-        final int alpha = Math.max(mPaint.getAlpha() - mFadeBy, 0);
-        mPaint.setAlpha(alpha);
-        invalidate();
+        removeCallbacks(mFadeFrameRunnable);
+        if (isFadingWithLayer()) {
+          Honeycomb.setLayerType(UnderlinePageIndicator.this, LAYER_TYPE_HARDWARE);
+        }
+        mFadeStartTime = AnimationUtils.currentAnimationTimeMillis();
+        mFadeStartAlpha = mFadeAlpha;
+        mFadeFrameRunnable.run();
+      }
+    };
+
+    /** Sets the alpha for the time elapsed since the fade started. */
+    private final Runnable mFadeFrameRunnable = new Runnable() {
+      @Override public void run() {
+        if (!mFades) return;
+
+        final long elapsed = AnimationUtils.currentAnimationTimeMillis() - mFadeStartTime;
+        final float fraction = (mFadeLength > 0) ? Math.min(1f, elapsed / (float) mFadeLength) : 1f;
+        final int alpha = (int) (mFadeStartAlpha * (1f - fraction));
+        if (alpha != mFadeAlpha) {
+          setFadeAlpha(alpha);
+        }
         if (alpha > 0) {
-          postDelayed(this, FADE_FRAME_MS);
+          postFadeFrame();
+        } else {
+          releaseFadeLayer();
         }
       }
     };
@@ -119,13 +167,37 @@ public class UnderlinePageIndicator extends View implements PageIndicator {
             if (fades) {
                 post(mFadeRunnable);
             } else {
-                removeCallbacks(mFadeRunnable);
-                mPaint.setAlpha(0xFF);
+                cancelFade();
+                setFadeAlpha(0xFF);
                 invalidate();
             }
         }
     }
 
+    public boolean getFadesWithLayer() {
+        return mFadesWithLayer;
+    }
+
+    /**
+     * Fade by changing the alpha of the whole view while it is drawn into a
+     * hardware layer, rather than by redrawing the underline with a new paint
+     * alpha. Fade frames then do not run {@link #onDraw(Canvas)} at all. The
+     * background fades along with the underline and the view's layer type is
+     * reset to none when a fade ends. Has no effect before Honeycomb.
+     */
+    public void setFadesWithLayer(boolean fadesWithLayer) {
+        if (fadesWithLayer != mFadesWithLayer) {
+            //Restart any fade with the new method from fully opaque
+            cancelFade();
+            setFadeAlpha(0xFF);
+            mFadesWithLayer = fadesWithLayer;
+            invalidate();
+            if (mFades) {
+                post(mFadeRunnable);
+            }
+        }
+    }
+
     public int getFadeDelay() {
         return mFadeDelay;
     }
@@ -140,7 +212,50 @@ public class UnderlinePageIndicator extends View implements PageIndicator {
 
     public void setFadeLength(int fadeLength) {
         mFadeLength = fadeLength;
-        mFadeBy = 0xFF / (mFadeLength / FADE_FRAME_MS);
+    }
+
+    /**
+     * Schedule the next fade frame, synced to vsync where the platform allows.
+     */
+    private void postFadeFrame() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            JellyBean.postOnAnimation(this, mFadeFrameRunnable);
+        } else {
+            postDelayed(mFadeFrameRunnable, FADE_FRAME_MS);
+        }
+    }
+
+    /**
+     * Remove any pending or running fade.
+     */
+    private void cancelFade() {
+        removeCallbacks(mFadeRunnable);
+        removeCallbacks(mFadeFrameRunnable);
+        releaseFadeLayer();
+    }
+
+    private boolean isFadingWithLayer() {
+        return mFadesWithLayer && (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB);
+    }
+
+    /**
+     * Apply the faded alpha either to the view or to the underline paint.
+     */
+    private void setFadeAlpha(int alpha) {
+        mFadeAlpha = alpha;
+        if (isFadingWithLayer()) {
+            //Only the layer is recomposited, nothing is redrawn
+            Honeycomb.setAlpha(this, alpha / 255f);
+        } else {
+            mPaint.setAlpha(alpha);
+            invalidateUnderline();
+        }
+    }
+
+    private void releaseFadeLayer() {
+        if (isFadingWithLayer()) {
+            Honeycomb.setLayerType(this, LAYER_TYPE_NONE);
+        }
     }
 
     public int getSelectedColor() {
@@ -178,6 +293,28 @@ public class UnderlinePageIndicator extends View implements PageIndicator {
         canvas.drawRect(left, top, right, bottom, mPaint);
     }
 
+    /**
+     * Invalidate only the area covered by the underline at its current
+     * position.
+     */
+    private void invalidateUnderline() {
+        if (mViewPager == null) {
+            invalidate();
+            return;
+        }
+        final int count = mViewPager.getAdapter().getCount();
+        if (count == 0) {
+            invalidate();
+            return;
+        }
+
+        final int paddingLeft = getPaddingLeft();
+        final float pageWidth = (getWidth() - paddingLeft - getPaddingRight()) / (1f * count);
+        final float left = paddingLeft + pageWidth * (mCurrentPage + mPositionOffset);
+        invalidate((int) Math.floor(left), getPaddingTop(),
+                (int) Math.ceil(left + pageWidth), getHeight() - getPaddingBottom());
+    }
+
     public boolean onTouchEvent(MotionEvent ev) {
         if (super.onTouchEvent(ev)) {
             return true;
@@ -296,6 +433,7 @@ public class UnderlinePageIndicator extends View implements PageIndicator {
         if (mViewPager == null) {
             throw new IllegalStateException("ViewPager has not been bound.");
         }
+        mScrollCoalescer.flush();
         mViewPager.setCurrentItem(item);
         mCurrentPage = item;
         invalidate();
@@ -308,6 +446,7 @@ public class UnderlinePageIndicator extends View implements PageIndicator {
 
     @Override
     public void onPageScrollStateChanged(int state) {
+        mScrollCoalescer.setScrollState(state);
         mScrollState = state;
 
         if (mListener != null) {
@@ -317,17 +456,7 @@ public class UnderlinePageIndicator extends View implements PageIndicator {
 
     @Override
     public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
-        mCurrentPage = position;
-        mPositionOffset = positionOffset;
-        if (mFades) {
-            if (positionOffsetPixels > 0) {
-                removeCallbacks(mFadeRunnable);
-                mPaint.setAlpha(0xFF);
-            } else if (mScrollState != ViewPager.SCROLL_STATE_DRAGGING) {
-                postDelayed(mFadeRunnable, mFadeDelay);
-            }
-        }
-        invalidate();
+        mScrollCoalescer.post(position, positionOffset, positionOffsetPixels);
 
         if (mListener != null) {
             mListener.onPageScrolled(position, positionOffset, positionOffsetPixels);
@@ -336,10 +465,12 @@ public class UnderlinePageIndicator extends View implements PageIndicator {
 
     @Override
     public void onPageSelected(int position) {
+        mScrollCoalescer.flush();
         if (mScrollState == ViewPager.SCROLL_STATE_IDLE) {
+            invalidateUnderline();
             mCurrentPage = position;
             mPositionOffset = 0;
-            invalidate();
+            invalidateUnderline();
             mFadeRunnable.run();
         }
         if (mListener != null) {
@@ -352,6 +483,25 @@ public class UnderlinePageIndicator extends View implements PageIndicator {
         mListener = listener;
     }
 
+    /**
+     * Number of page scroll events which were skipped in the most recent
+     * frame because a newer one arrived before it was drawn.
+     */
+    public int getDroppedScrollEventCount() {
+        return mScrollCoalescer.getDroppedCount();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mScrollCoalescer.detach();
+        //Nothing may stay posted once detached so skip to the end of any fade
+        cancelFade();
+        if (mFades) {
+            setFadeAlpha(0);
+        }
+    }
+
     @Override
     public void onRestoreInstanceState(Parcelable state) {
         SavedState savedState = (SavedState)state;
@@ -399,4 +549,22 @@ public class UnderlinePageIndicator extends View implements PageIndicator {
             }
         };
     }
+
+    /** Kept separate so that API 11 methods are only loaded where they exist. */
+    private static class Honeycomb {
+        static void setAlpha(View view, float alpha) {
+            view.setAlpha(alpha);
+        }
+
+        static void setLayerType(View view, int layerType) {
+            view.setLayerType(layerType, null);
+        }
+    }
+
+    /** Kept separate so that API 16 methods are only loaded where they exist. */
+    private static class JellyBean {
+        static void postOnAnimation(View view, Runnable action) {
+            view.postOnAnimation(action);
+        }
+    }
 }
\ No newline at end of file
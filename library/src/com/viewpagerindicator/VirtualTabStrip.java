@@ -0,0 +1,363 @@
+/*
+ * Copyright (C) 2012 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viewpagerindicator;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+
+import static android.view.ViewGroup.LayoutParams.MATCH_PARENT;
+import static android.view.ViewGroup.LayoutParams.WRAP_CONTENT;
+
+/**
+ * A horizontal strip of tabs which only has views for the tabs inside the
+ * visible viewport of its parent, plus a few on either side. The width of
+ * every tab is still estimated up front so the strip scrolls as if all of
+ * them were present, and corrected once the tab has a view which can be
+ * measured. Tabs which leave the viewport are recycled for the ones which
+ * enter it.
+ */
+class VirtualTabStrip extends ViewGroup {
+    /** Number of tabs kept bound beyond each edge of the viewport. */
+    private static final int OFFSCREEN_TABS = 2;
+
+    /**
+     * Interface supplying the tabs of the strip.
+     */
+    public interface Adapter {
+        /** Number of tabs in the strip. */
+        int getCount();
+
+        /**
+         * Estimated width of the tab at {@code index}, without needing its
+         * view. This is called for every tab so it must be cheap.
+         */
+        int estimateTabWidth(int index);
+
+        /** Create a new, unbound tab view. */
+        View createTab();
+
+        /** Show the tab at {@code index} in {@code tab}, which may have shown another. */
+        void bindTab(View tab, int index);
+
+        /** Take back a tab which the strip no longer uses. */
+        void releaseTab(View tab);
+    }
+
+    private final ArrayList<View> mScrap = new ArrayList<View>();
+
+    private final Adapter mAdapter;
+    /** Number of tabs the offsets were calculated for. */
+    private int mCount;
+    /** Left edge of each tab, followed by the total width. */
+    private int[] mOffsets = new int[1];
+    private boolean mWidthsDirty = true;
+    private int mFillWidth = -1;
+
+    /** Index of the tab shown by the first child. */
+    private int mFirst;
+    private int mViewportLeft;
+    private int mViewportWidth;
+    private int mChildHeightMeasureSpec = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+
+    public VirtualTabStrip(Context context, Adapter adapter) {
+        super(context);
+        mAdapter = adapter;
+    }
+
+    /**
+     * Rebind every tab and recalculate their widths after the adapter
+     * changed.
+     */
+    public void notifyDataSetChanged() {
+        final int count = mAdapter.getCount();
+        final int childCount = getChildCount();
+        final int valid = Math.max(0, Math.min(childCount, count - mFirst));
+        if (valid < childCount) {
+            recycleChildren(valid, childCount - valid);
+        }
+        for (int i = 0; i < valid; i++) {
+            mAdapter.bindTab(getChildAt(i), mFirst + i);
+        }
+        mWidthsDirty = true;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Recalculate the tab widths on the next measure, for example because
+     * their maximum width changed.
+     */
+    public void setWidthsDirty() {
+        mWidthsDirty = true;
+    }
+
+    /**
+     * Measure the tab at {@code index} again after its content changed and
+     * move the tabs after it, rather than measuring every tab.
+     */
+    public void updateTabWidth(int index) {
+        if (mWidthsDirty || index >= mCount) {
+            //Every width is estimated on the next layout anyway
+            return;
+        }
+        final View tab = getTab(index);
+        if (setTabWidth(index, (tab != null) ? measureNaturalWidth(tab) : mAdapter.estimateTabWidth(index))) {
+            requestLayout();
+        }
+    }
+
+    /**
+     * Give every tab, including the recycled ones, back to the adapter. The
+     * tabs around the viewport are created again on the next layout.
+     */
+    public void releaseTabs() {
+        recycleChildren(0, getChildCount());
+        for (int i = 0; i < mScrap.size(); i++) {
+            mAdapter.releaseTab(mScrap.get(i));
+        }
+        mScrap.clear();
+        requestLayout();
+    }
+
+    /**
+     * Get the view of the tab at {@code index} or {@code null} if it is
+     * outside the viewport and has no view.
+     */
+    public View getTab(int index) {
+        final int position = index - mFirst;
+        if (position < 0 || position >= getChildCount()) {
+            return null;
+        }
+        return getChildAt(position);
+    }
+
+    /** Index of the tab shown by the child at {@code position}. */
+    public int getTabIndex(int position) {
+        return mFirst + position;
+    }
+
+    public int getTabLeft(int index) {
+        return mOffsets[Math.min(index, mCount)];
+    }
+
+    public int getTabWidth(int index) {
+        if (index >= mCount) {
+            return 0;
+        }
+        return mOffsets[index + 1] - mOffsets[index];
+    }
+
+    /**
+     * Update the horizontal range which is visible in the parent and bind
+     * the tabs inside it.
+     */
+    public void setViewport(int left, int width) {
+        if (left == mViewportLeft && width == mViewportWidth) {
+            return;
+        }
+        mViewportLeft = left;
+        mViewportWidth = width;
+        if (!isLayoutRequested() && fill()) {
+            //Tabs which were only estimated moved the tabs after them
+            requestLayout();
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        final int count = mAdapter.getCount();
+
+        //Like a weighted LinearLayout, split an exact width evenly
+        final int fillWidth = (MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.EXACTLY)
+                ? MeasureSpec.getSize(widthMeasureSpec) : -1;
+        final boolean estimated = mWidthsDirty || fillWidth != mFillWidth || count != mCount;
+        if (estimated) {
+            mWidthsDirty = false;
+            mCount = count;
+            mFillWidth = fillWidth;
+            calculateOffsets();
+        }
+
+        mChildHeightMeasureSpec = getChildMeasureSpec(heightMeasureSpec, 0, MATCH_PARENT);
+        if (estimated) {
+            //Tabs which already have a view can be measured rather than estimated
+            final int boundCount = Math.min(getChildCount(), mCount - mFirst);
+            for (int i = 0; i < boundCount; i++) {
+                setTabWidth(mFirst + i, measureNaturalWidth(getChildAt(i)));
+            }
+        }
+        fill();
+        int height = 0;
+        final int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            height = Math.max(height, getChildAt(i).getMeasuredHeight());
+        }
+        height = resolveSize(height, heightMeasureSpec);
+
+        //Make every tab as tall as the strip
+        mChildHeightMeasureSpec = MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY);
+        for (int i = 0; i < childCount; i++) {
+            measureTab(getChildAt(i), mFirst + i);
+        }
+        setMeasuredDimension(mOffsets[mCount], height);
+    }
+
+    private void calculateOffsets() {
+        if (mOffsets.length < mCount + 1) {
+            mOffsets = new int[mCount + 1];
+        }
+        if (mFillWidth >= 0 && mCount > 0) {
+            for (int i = 0; i <= mCount; i++) {
+                mOffsets[i] = (int)((long)mFillWidth * i / mCount);
+            }
+        } else {
+            int left = 0;
+            for (int i = 0; i < mCount; i++) {
+                mOffsets[i] = left;
+                left += mAdapter.estimateTabWidth(i);
+            }
+            mOffsets[mCount] = left;
+        }
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        if (fill()) {
+            //The strip was measured with the estimated widths
+            requestLayout();
+        }
+        final int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            layoutTab(getChildAt(i), mFirst + i);
+        }
+    }
+
+    /**
+     * Bind the tabs around the viewport and recycle the ones which are no
+     * longer near it.
+     *
+     * @return Whether the width of a newly bound tab differed from its estimate.
+     */
+    private boolean fill() {
+        int first = 0;
+        int last = -1;
+        if (mCount > 0) {
+            first = Math.max(0, findTab(mViewportLeft) - OFFSCREEN_TABS);
+            last = Math.min(mCount - 1, findTab(mViewportLeft + Math.max(mViewportWidth, 1) - 1) + OFFSCREEN_TABS);
+        }
+
+        final int childCount = getChildCount();
+        final int oldLast = mFirst + childCount - 1;
+        if (childCount == 0 || last < mFirst || first > oldLast) {
+            recycleChildren(0, childCount);
+            mFirst = first;
+        } else {
+            if (oldLast > last) {
+                recycleChildren(last - mFirst + 1, oldLast - last);
+            }
+            if (first > mFirst) {
+                recycleChildren(0, first - mFirst);
+                mFirst = first;
+            }
+        }
+
+        boolean resized = false;
+        for (int i = mFirst - 1; i >= first; i--) {
+            resized |= addTab(i, 0);
+            mFirst = i;
+        }
+        for (int i = mFirst + getChildCount(); i <= last; i++) {
+            resized |= addTab(i, getChildCount());
+        }
+        return resized;
+    }
+
+    /** Index of the tab which contains {@code x}. */
+    private int findTab(int x) {
+        int low = 0;
+        int high = mCount - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (mOffsets[mid] <= x) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Bind a tab at {@code index} and correct its estimated width.
+     *
+     * @return Whether its width differed from the estimate.
+     */
+    private boolean addTab(int index, int position) {
+        final int scrapCount = mScrap.size();
+        final View tab = (scrapCount > 0) ? mScrap.remove(scrapCount - 1) : mAdapter.createTab();
+        mAdapter.bindTab(tab, index);
+        addViewInLayout(tab, position, new LayoutParams(WRAP_CONTENT, MATCH_PARENT));
+        final boolean resized = setTabWidth(index, measureNaturalWidth(tab));
+        measureTab(tab, index);
+        layoutTab(tab, index);
+        return resized;
+    }
+
+    private void recycleChildren(int start, int count) {
+        for (int i = 0; i < count; i++) {
+            mScrap.add(getChildAt(start + i));
+        }
+        removeViewsInLayout(start, count);
+    }
+
+    /**
+     * Replace the estimated width of the tab at {@code index} and move the
+     * tabs after it.
+     *
+     * @return Whether the width changed.
+     */
+    private boolean setTabWidth(int index, int width) {
+        if (mFillWidth >= 0) {
+            //Tabs split the width evenly whatever their content
+            return false;
+        }
+        final int delta = width - getTabWidth(index);
+        if (delta == 0) {
+            return false;
+        }
+        for (int i = index + 1; i <= mCount; i++) {
+            mOffsets[i] += delta;
+        }
+        return true;
+    }
+
+    /** Width the bound {@code tab} wants for its content. */
+    private int measureNaturalWidth(View tab) {
+        tab.measure(MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED), mChildHeightMeasureSpec);
+        return tab.getMeasuredWidth();
+    }
+
+    private void measureTab(View tab, int index) {
+        tab.measure(MeasureSpec.makeMeasureSpec(getTabWidth(index), MeasureSpec.EXACTLY), mChildHeightMeasureSpec);
+    }
+
+    private void layoutTab(View tab, int index) {
+        tab.layout(mOffsets[index], 0, mOffsets[index + 1], tab.getMeasuredHeight());
+    }
+}
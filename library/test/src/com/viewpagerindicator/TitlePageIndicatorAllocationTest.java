@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2012 Jake Wharton
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.viewpagerindicator;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewPager;
+import android.test.InstrumentationTestCase;
+import android.view.View;
+import android.view.View.MeasureSpec;
+
+/**
+ * Checks that drawing a {@link TitlePageIndicator} which is neither scrolling
+ * nor changing its titles allocates nothing.
+ */
+public class TitlePageIndicatorAllocationTest extends InstrumentationTestCase {
+    private static final int PAGE_COUNT = 50;
+    private static final int WIDTH = 480;
+    private static final int WARM_UP_FRAMES = 5;
+    private static final int MEASURED_FRAMES = 100;
+
+    private TitlePageIndicator mIndicator;
+    private Canvas mCanvas;
+    private int mAllocations;
+
+    public void testSteadyStateDrawDoesNotAllocate() throws Exception {
+        assertEquals(0, countDrawAllocations(0));
+    }
+
+    public void testSteadyStateDrawWithTitleAtlasDoesNotAllocate() throws Exception {
+        assertEquals(0, countDrawAllocations(1024 * 1024));
+    }
+
+    private int countDrawAllocations(final int titleAtlasSize) throws Exception {
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                setUpIndicator(titleAtlasSize);
+
+                //Settle the title bounds, widths and the atlas
+                for (int i = 0; i < WARM_UP_FRAMES; i++) {
+                    mIndicator.draw(mCanvas);
+                }
+
+                Debug.startAllocCounting();
+                try {
+                    Debug.resetThreadAllocCount();
+                    for (int i = 0; i < MEASURED_FRAMES; i++) {
+                        mIndicator.draw(mCanvas);
+                    }
+                    mAllocations = Debug.getThreadAllocCount();
+                } finally {
+                    Debug.stopAllocCounting();
+                }
+            }
+        });
+        return mAllocations;
+    }
+
+    private void setUpIndicator(int titleAtlasSize) {
+        final Context context = getInstrumentation().getTargetContext();
+        final ViewPager pager = new ViewPager(context);
+        pager.setAdapter(new TitleAdapter(PAGE_COUNT));
+
+        mIndicator = new TitlePageIndicator(context);
+        mIndicator.setTitleAtlasSize(titleAtlasSize);
+        mIndicator.setViewPager(pager, PAGE_COUNT / 2);
+
+        mIndicator.measure(MeasureSpec.makeMeasureSpec(WIDTH, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+        mIndicator.layout(0, 0, mIndicator.getMeasuredWidth(), mIndicator.getMeasuredHeight());
+
+        //Leave the indicator part way between two pages so both are drawn
+        mIndicator.onPageScrolled(PAGE_COUNT / 2, 0.3f, (int) (WIDTH * 0.3f));
+        mIndicator.onPageScrollStateChanged(ViewPager.SCROLL_STATE_DRAGGING);
+
+        final Bitmap bitmap = Bitmap.createBitmap(mIndicator.getMeasuredWidth(),
+                mIndicator.getMeasuredHeight(), Bitmap.Config.ARGB_8888);
+        mCanvas = new Canvas(bitmap);
+    }
+
+    /** Adapter whose titles are created up front so fetching them is free. */
+    private static class TitleAdapter extends PagerAdapter {
+        private final String[] mTitles;
+
+        TitleAdapter(int count) {
+            mTitles = new String[count];
+            for (int i = 0; i < count; i++) {
+                mTitles[i] = "Page " + i;
+            }
+        }
+
+        @Override
+        public int getCount() {
+            return mTitles.length;
+        }
+
+        @Override
+        public CharSequence getPageTitle(int position) {
+            return mTitles[position];
+        }
+
+        @Override
+        public boolean isViewFromObject(View view, Object object) {
+            return view == object;
+        }
+    }
+}